@@ -0,0 +1,27 @@
+package ioio.lib.api;
+
+/**
+ * Receives every analog frame as it arrives from the IOIO, before the samples are handed to the
+ * {@link AnalogInput} instances.
+ * <p>
+ * The listener is called on the thread that reads from the IOIO, so it must not block and should
+ * take a bounded amount of time: anything slower delays every input of the board. The arrays are
+ * reused for the next frame, and must not be kept.
+ *
+ * @see IOIO#setAnalogFrameListener(AnalogFrameListener)
+ */
+public interface AnalogFrameListener {
+	/**
+	 * Called for each analog frame.
+	 *
+	 * @param frame
+	 *            The number of the frame, consecutive since the connection was established.
+	 * @param pins
+	 *            The sampled pins.
+	 * @param values
+	 *            The 10-bit ADC counts of the pins, in the same order.
+	 * @param numPins
+	 *            The number of pins in the frame.
+	 */
+	public void frameReceived(long frame, int[] pins, int[] values, int numPins);
+}
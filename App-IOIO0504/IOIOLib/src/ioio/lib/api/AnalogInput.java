@@ -66,7 +66,11 @@ import ioio.lib.api.exception.ConnectionLostException;
  * ready in the buffer. In case the buffer overflows, as result of the client not reading fast
  * enough, old samples will be dropped, and the client can check {@link #getOverflowCount()} to
  * determine how many samples have been lost. The sample rate used for capturing samples can be
- * obtained by calling {@link #getSampleRate()}.
+ * obtained by calling {@link #getSampleRate()}. Many samples can be read at once by calling
+ * {@link #readBuffered(float[], int, int)}, {@link #getVoltageBuffered(float[], int, int)} or,
+ * as raw counts, {@link #readBuffered(short[], int, int)}. The buffer is lock-free and meant
+ * to be read by a single thread. Several inputs can be read in lockstep, from the same sampling
+ * frames, with {@link #getBufferedFrame()} and {@link #readBuffered(long, short[], int, int)}.
  * <p>
  * The non-buffered versions of the read methods will still behave normally when buffering is
  * enabled. The {@link #read()} and {@link #getVoltage()} methods will always return the most recent
@@ -85,10 +89,69 @@ import ioio.lib.api.exception.ConnectionLostException;
  * ...
  * potentiometer.close();  // pin 40 can now be used for something else.
  * </pre>
+ * <p>
+ * A third usage keeps running statistics of the most recent samples, without ever blocking. The
+ * {@link #setWindow(int)} method sets up a sliding window, which is updated as samples arrive.
+ * Then, {@link #getWindowStatistics(WindowStatistics)} copies the count, sum, sum of squares,
+ * minimum and maximum of the samples currently in the window in constant time. This is
+ * independent of the buffer, and both can be used at the same time.
+ * <p>
+ * Typical usage:
+ *
+ * <pre>
+ * AnalogInput potentiometer = ioio.openAnalogInput(40);
+ * potentiometer.setWindow(100);
+ * AnalogInput.WindowStatistics statistics = new AnalogInput.WindowStatistics();
+ * while (true) {
+ *   // never blocks, the window holds up to the last 100 samples
+ *   potentiometer.getWindowStatistics(statistics);
+ *   float mean = statistics.getMean();
+ *   ...
+ * }
+ * </pre>
  *
  * @see IOIO#openAnalogInput(int)
  */
 public interface AnalogInput extends Closeable {
+	/**
+	 * Statistics of the samples in the sliding window, as raw 10-bit counts (0 to 1023).
+	 *
+	 * @see AnalogInput#getWindowStatistics(WindowStatistics)
+	 */
+	static public class WindowStatistics {
+		/** The number of samples in the window. Zero if no sample has arrived yet. */
+		public int count;
+		/** The sum of the samples in the window. */
+		public long sum;
+		/** The sum of the squares of the samples in the window. */
+		public long sumOfSquares;
+		/** The lowest sample in the window. */
+		public int min;
+		/** The highest sample in the window. */
+		public int max;
+
+		/**
+		 * Gets the mean of the samples in the window.
+		 *
+		 * @return The mean, scaled to the range [0,1], or NaN if the window is empty.
+		 */
+		public float getMean() {
+			return (float) ((double) sum / count / 1023.0);
+		}
+
+		/**
+		 * Gets the population standard deviation of the samples in the window.
+		 *
+		 * @return The standard deviation, scaled to the range [0,1], or NaN if the window is
+		 *         empty.
+		 */
+		public float getStandardDeviation() {
+			final double mean = (double) sum / count;
+			final double variance = Math.max(0.0, (double) sumOfSquares / count - mean * mean);
+			return (float) (Math.sqrt(variance) / 1023.0);
+		}
+	}
+
 	/**
 	 * Gets the analog input reading, as an absolute voltage in Volt units.
 	 * <p>
@@ -214,6 +277,30 @@ public interface AnalogInput extends Closeable {
 	 */
 	public float readBuffered() throws InterruptedException, ConnectionLostException;
 
+	/**
+	 * Read many samples from the internal buffer at once. This is equivalent to calling
+	 * {@link #readBuffered()} len times, but much cheaper: the samples are copied in bulk, and
+	 * the calling thread only blocks while the buffer is empty. This method returns when all len
+	 * samples have been read, or throws if the instance is closed (via {@link #close()}), the
+	 * thread is interrupted (via {@link Thread#interrupt()} or connection is lost.
+	 * {@link #setBuffer(int)} must be called prior to this method for setting up an internal
+	 * buffer for storing samples.
+	 *
+	 * @param dst
+	 *            The array receiving the samples, oldest first, scaled to the range [0,1].
+	 * @param off
+	 *            The index in dst of the first sample.
+	 * @param len
+	 *            The number of samples to read.
+	 * @see #readBuffered()
+	 * @throws InterruptedException
+	 *             The calling thread has been interrupted.
+	 * @throws ConnectionLostException
+	 *             The connection with the IOIO is lost.
+	 */
+	public void readBuffered(float[] dst, int off, int len) throws InterruptedException,
+			ConnectionLostException;
+
 	/**
 	 * Read a sample from the internal buffer. This method will block until at least one sample is
 	 * available, the instance is closed (via {@link #close()}), the thread is interrupted (via
@@ -229,6 +316,82 @@ public interface AnalogInput extends Closeable {
 	 */
 	public float getVoltageBuffered() throws InterruptedException, ConnectionLostException;
 
+	/**
+	 * Same as {@link #readBuffered(float[], int, int)}, but in Volt units. Each sample has the
+	 * value {@link #getVoltageBuffered()} would have returned.
+	 *
+	 * @param dst
+	 *            The array receiving the samples, oldest first, in Volt units.
+	 * @param off
+	 *            The index in dst of the first sample.
+	 * @param len
+	 *            The number of samples to read.
+	 * @see #readBuffered(float[], int, int)
+	 * @throws InterruptedException
+	 *             The calling thread has been interrupted.
+	 * @throws ConnectionLostException
+	 *             The connection with the IOIO is lost.
+	 */
+	public void getVoltageBuffered(float[] dst, int off, int len) throws InterruptedException,
+			ConnectionLostException;
+
+	/**
+	 * Same as {@link #readBuffered(float[], int, int)}, but as raw 10-bit ADC counts, from 0 to
+	 * 1023. No conversion takes place, the samples are copied as they were received.
+	 *
+	 * @param counts
+	 *            The array receiving the samples, oldest first.
+	 * @param off
+	 *            The index in counts of the first sample.
+	 * @param len
+	 *            The number of samples to read.
+	 * @see #readBuffered(float[], int, int)
+	 * @throws InterruptedException
+	 *             The calling thread has been interrupted.
+	 * @throws ConnectionLostException
+	 *             The connection with the IOIO is lost.
+	 */
+	public void readBuffered(short[] counts, int off, int len) throws InterruptedException,
+			ConnectionLostException;
+
+	/**
+	 * Same as {@link #readBuffered(short[], int, int)}, but starting at the sample of a given
+	 * analog frame, dropping the older unread samples. This method blocks until the last sample
+	 * arrives.
+	 * <p>
+	 * The IOIO samples all the open analog inputs in the same frames, numbered consecutively
+	 * since the connection was established, so reading several inputs from the same frame
+	 * yields readings taken together.
+	 *
+	 * @param frame
+	 *            The frame of the first sample.
+	 * @param counts
+	 *            The array receiving the samples, oldest first.
+	 * @param off
+	 *            The index in counts of the first sample.
+	 * @param len
+	 *            The number of samples to read.
+	 * @return false if some of the samples were no longer in the buffer, having been read or
+	 *         overwritten already, in which case the content of counts is undefined.
+	 * @see #getBufferedFrame()
+	 * @throws InterruptedException
+	 *             The calling thread has been interrupted.
+	 * @throws ConnectionLostException
+	 *             The connection with the IOIO is lost.
+	 */
+	public boolean readBuffered(long frame, short[] counts, int off, int len)
+			throws InterruptedException, ConnectionLostException;
+
+	/**
+	 * Gets the analog frame of the newest sample that entered the buffer, read or not.
+	 *
+	 * @return The frame, or -1 if no sample has been buffered yet.
+	 * @see #readBuffered(long, short[], int, int)
+	 * @throws ConnectionLostException
+	 *             The connection with the IOIO is lost.
+	 */
+	public long getBufferedFrame() throws ConnectionLostException;
+
 	/**
 	 * Gets the sample rate used for obtaining buffered samples.
 	 *
@@ -237,4 +400,31 @@ public interface AnalogInput extends Closeable {
 	 *             The connection with the IOIO is lost.
 	 */
 	public float getSampleRate() throws ConnectionLostException;
+
+	/**
+	 * Initializes or destroys a sliding window of running statistics. When called with a positive
+	 * argument, the statistics of the last size samples will be maintained as samples arrive, and
+	 * can be obtained by calling {@link #getWindowStatistics(WindowStatistics)}. Any previous
+	 * window is discarded.
+	 * <p>
+	 * When called with argument of 0, the window is destroyed.
+	 *
+	 * @param size
+	 *            The number of most recent samples the statistics are computed on.
+	 * @throws ConnectionLostException
+	 *             The connection with the IOIO is lost.
+	 */
+	public void setWindow(int size) throws ConnectionLostException;
+
+	/**
+	 * Gets the statistics of the samples currently in the sliding window. This method never
+	 * blocks waiting for samples and takes constant time regardless of the window size.
+	 * {@link #setWindow(int)} must be called prior to this method for setting up the window.
+	 *
+	 * @param statistics
+	 *            The instance to fill, so that polling does not allocate.
+	 * @throws ConnectionLostException
+	 *             The connection with the IOIO is lost.
+	 */
+	public void getWindowStatistics(WindowStatistics statistics) throws ConnectionLostException;
 }
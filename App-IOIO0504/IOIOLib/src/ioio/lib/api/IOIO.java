@@ -623,6 +623,25 @@ public interface IOIO {
 	 */
 	public Sequencer openSequencer(Sequencer.ChannelConfig config[]) throws ConnectionLostException;
 
+	/**
+	 * Sets a listener for every analog frame, typically for recording the raw samples of all the
+	 * open analog inputs. Only one listener is kept, null removes it.
+	 *
+	 * @param listener
+	 *            The listener, called on the thread that reads from the IOIO.
+	 * @see AnalogFrameListener
+	 */
+	public void setAnalogFrameListener(AnalogFrameListener listener);
+
+	/**
+	 * Gets the counters of the traffic with the IOIO, which may be read from any thread without
+	 * blocking the threads that talk to the IOIO.
+	 *
+	 * @return The counters of this connection.
+	 * @see LinkStatistics
+	 */
+	public LinkStatistics getLinkStatistics();
+
 	/**
 	 * Start a batch of operations. This is strictly an optimization and will not change
 	 * functionality: if the client knows that a sequence of several IOIO operations are going to be
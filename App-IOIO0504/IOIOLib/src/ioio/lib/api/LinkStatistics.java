@@ -0,0 +1,39 @@
+package ioio.lib.api;
+
+/**
+ * Counters of the traffic between this host and the IOIO, since the connection was established.
+ * <p>
+ * The counters are updated by the threads that talk to the IOIO without taking any lock, and
+ * reading them never blocks those threads, so they may be polled from any thread, for instance by
+ * a monitoring endpoint. Each getter returns a recent value; the counters are not read as one
+ * snapshot.
+ *
+ * @see IOIO#getLinkStatistics()
+ */
+public interface LinkStatistics {
+	/**
+	 * @return The number of bytes received from the IOIO.
+	 */
+	public long getBytesIn();
+
+	/**
+	 * @return The number of bytes sent to the IOIO.
+	 */
+	public long getBytesOut();
+
+	/**
+	 * @return The number of protocol messages received from the IOIO.
+	 */
+	public long getCommandsIn();
+
+	/**
+	 * @return The number of protocol commands sent to the IOIO.
+	 */
+	public long getCommandsOut();
+
+	/**
+	 * @return The number of times a queued TWI or SPI packet had to wait for the IOIO to report
+	 *         room in its transmit buffer.
+	 */
+	public long getFlowControlStalls();
+}
@@ -35,15 +35,14 @@ import ioio.lib.impl.IncomingState.InputPinListener;
 import java.io.IOException;
 
 class AnalogInputImpl extends AbstractPin implements AnalogInput, InputPinListener {
-	private int value_;
-	private long sampleCount_ = 0;
+	// Written by the protocol thread only. Readers are only woken up when some are waiting, so
+	// that the common case of a sample arriving costs no lock.
+	private volatile int value_;
+	private volatile long sampleCount_ = 0;
+	private volatile int waiters_ = 0;
 
-	short[] buffer_;
-	int bufferSize_;
-	int bufferCapacity_;
-	int bufferReadCursor_;
-	int bufferWriteCursor_;
-	int bufferOverflowCount_ = 0;
+	private volatile SampleRing buffer_;
+	private volatile SampleWindow window_;
 
 	AnalogInputImpl(IOIOImpl ioio, ResourceManager.Resource pin) throws ConnectionLostException {
 		super(ioio, pin);
@@ -65,21 +64,39 @@ class AnalogInputImpl extends AbstractPin implements AnalogInput, InputPinListen
 	}
 
 	@Override
-	synchronized public void setValue(int value) {
+	public void setValue(int value) {
 		// Log.v("AnalogInputImpl", "Pin " + pinNum_ + " value is " + value);
 		assert (value >= 0 && value < 1024);
+		final SampleRing buffer = buffer_;
+		if (buffer != null) {
+			buffer.push((short) value, ioio_.incomingState_.analogFrame_);
+		}
+		final SampleWindow window = window_;
+		if (window != null) {
+			synchronized (window) {
+				window.push(value);
+			}
+		}
 		value_ = value;
-		++sampleCount_;
-		bufferPush((short) value);
-		notifyAll();
+		sampleCount_ = sampleCount_ + 1;
+		if (waiters_ > 0) {
+			synchronized (this) {
+				notifyAll();
+			}
+		}
 	}
 
 	@Override
 	synchronized public float read() throws InterruptedException, ConnectionLostException {
 		checkState();
 		// Wait for sample count to be non-zero.
-		while (sampleCount_ == 0) {
-			safeWait();
+		++waiters_;
+		try {
+			while (sampleCount_ == 0) {
+				safeWait();
+			}
+		} finally {
+			--waiters_;
 		}
 		return (float) value_ / 1023.0f;
 	}
@@ -89,8 +106,13 @@ class AnalogInputImpl extends AbstractPin implements AnalogInput, InputPinListen
 		checkState();
 		final long initialSampleCount = sampleCount_;
 		// Wait for sample count to increase.
-		while (sampleCount_ == initialSampleCount) {
-			safeWait();
+		++waiters_;
+		try {
+			while (sampleCount_ == initialSampleCount) {
+				safeWait();
+			}
+		} finally {
+			--waiters_;
 		}
 		return (float) value_ / 1023.0f;
 	}
@@ -108,22 +130,25 @@ class AnalogInputImpl extends AbstractPin implements AnalogInput, InputPinListen
 	@Override
 	public synchronized void setBuffer(int capacity) throws ConnectionLostException {
 		checkState();
-		if (capacity <= 0) {
-			buffer_ = null;
-		} else {
-			buffer_ = new short[capacity];
-		}
-		bufferCapacity_ = capacity;
-		bufferSize_ = 0;
-		bufferReadCursor_ = 0;
-		bufferWriteCursor_ = 0;
-		bufferOverflowCount_ = 0;
+		buffer_ = capacity <= 0 ? null : new SampleRing(capacity);
+		notifyAll();
 	}
 
 	@Override
 	public float readBuffered() throws InterruptedException, ConnectionLostException {
 		checkState();
-		return (float) bufferPull() / 1023.0f;
+		final SampleRing buffer = getBuffer();
+		int value;
+		while ((value = buffer.read()) < 0) {
+			waitForSamples(buffer);
+		}
+		return (float) value / 1023.0f;
+	}
+
+	@Override
+	public void readBuffered(float[] dst, int off, int len) throws InterruptedException,
+			ConnectionLostException {
+		readBuffered(dst, off, len, 1.0f);
 	}
 
 	@Override
@@ -131,41 +156,119 @@ class AnalogInputImpl extends AbstractPin implements AnalogInput, InputPinListen
 		return readBuffered() * getReference();
 	}
 
-	private void bufferPush(short value) {
-		if (buffer_ == null) {
-			return;
+	@Override
+	public void getVoltageBuffered(float[] dst, int off, int len) throws InterruptedException,
+			ConnectionLostException {
+		readBuffered(dst, off, len, getReference());
+	}
+
+	@Override
+	public void readBuffered(short[] counts, int off, int len) throws InterruptedException,
+			ConnectionLostException {
+		checkState();
+		if (off < 0 || len < 0 || off + len > counts.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		readCounts(getBuffer(), counts, off, len);
+	}
+
+	@Override
+	public boolean readBuffered(long frame, short[] counts, int off, int len)
+			throws InterruptedException, ConnectionLostException {
+		checkState();
+		if (off < 0 || len < 0 || off + len > counts.length) {
+			throw new IndexOutOfBoundsException();
 		}
-		if (bufferSize_ == bufferCapacity_) {
-			++bufferOverflowCount_;
-		} else {
-			++bufferSize_;
+		final SampleRing buffer = getBuffer();
+		waitForFrame(buffer, frame);
+		if (!buffer.seek(frame)) {
+			return false;
 		}
-		buffer_[bufferWriteCursor_++] = value;
-		if (bufferWriteCursor_ == bufferCapacity_) {
-			bufferWriteCursor_ = 0;
+		readCounts(buffer, counts, off, len);
+		// Overwritten samples are skipped while reading, which would shift the frames.
+		return buffer.nextFrame() == frame + len;
+	}
+
+	@Override
+	public long getBufferedFrame() throws ConnectionLostException {
+		final SampleRing buffer = buffer_;
+		return buffer == null ? -1 : buffer.newestFrame();
+	}
+
+	private void readCounts(SampleRing buffer, short[] counts, int off, int len)
+			throws InterruptedException, ConnectionLostException {
+		while (len > 0) {
+			final int count = buffer.read(counts, off, len);
+			if (count == 0) {
+				waitForSamples(buffer);
+			}
+			off += count;
+			len -= count;
 		}
 	}
 
-	private synchronized short bufferPull() throws InterruptedException, ConnectionLostException {
+	private void readBuffered(float[] dst, int off, int len, float scale)
+			throws InterruptedException, ConnectionLostException {
 		checkState();
-		if (buffer_ == null) {
+		if (off < 0 || len < 0 || off + len > dst.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		final SampleRing buffer = getBuffer();
+		while (len > 0) {
+			final int count = buffer.read(dst, off, len, scale);
+			if (count == 0) {
+				waitForSamples(buffer);
+			}
+			off += count;
+			len -= count;
+		}
+	}
+
+	private SampleRing getBuffer() {
+		final SampleRing buffer = buffer_;
+		if (buffer == null) {
 			throw new IllegalStateException(
 					"Need to call setBuffer() before reading buffered values.");
 		}
-		while (bufferSize_ == 0) {
-			safeWait();
+		return buffer;
+	}
+
+	private synchronized void waitForSamples(SampleRing buffer) throws InterruptedException,
+			ConnectionLostException {
+		// The producer checks waiters_ after publishing a sample, and we check the buffer after
+		// publishing waiters_, so a sample cannot arrive unnoticed between the check and wait().
+		++waiters_;
+		try {
+			while (buffer.available() == 0) {
+				if (buffer != buffer_) {
+					throw new IllegalStateException("Buffer was replaced while reading.");
+				}
+				safeWait();
+			}
+		} finally {
+			--waiters_;
 		}
-		short result = buffer_[bufferReadCursor_++];
-		if (bufferReadCursor_ == bufferCapacity_) {
-			bufferReadCursor_ = 0;
+	}
+
+	private synchronized void waitForFrame(SampleRing buffer, long frame)
+			throws InterruptedException, ConnectionLostException {
+		++waiters_;
+		try {
+			while (buffer.newestFrame() < frame) {
+				if (buffer != buffer_) {
+					throw new IllegalStateException("Buffer was replaced while reading.");
+				}
+				safeWait();
+			}
+		} finally {
+			--waiters_;
 		}
-		--bufferSize_;
-		return result;
 	}
 
 	@Override
 	public int getOverflowCount() throws ConnectionLostException {
-		return bufferOverflowCount_;
+		final SampleRing buffer = buffer_;
+		return buffer == null ? 0 : buffer.getOverflowCount();
 	}
 
 	@Override
@@ -175,6 +278,26 @@ class AnalogInputImpl extends AbstractPin implements AnalogInput, InputPinListen
 
 	@Override
 	public int available() throws ConnectionLostException {
-		return bufferSize_;
+		final SampleRing buffer = buffer_;
+		return buffer == null ? 0 : buffer.available();
+	}
+
+	@Override
+	public synchronized void setWindow(int size) throws ConnectionLostException {
+		checkState();
+		window_ = size <= 0 ? null : new SampleWindow(size);
+	}
+
+	@Override
+	public void getWindowStatistics(WindowStatistics statistics) throws ConnectionLostException {
+		checkState();
+		final SampleWindow window = window_;
+		if (window == null) {
+			throw new IllegalStateException(
+					"Need to call setWindow() before reading window statistics.");
+		}
+		synchronized (window) {
+			window.get(statistics);
+		}
 	}
 }
@@ -0,0 +1,75 @@
+package ioio.lib.impl;
+
+/**
+ * A fixed-capacity circular buffer of bytes, moving data in bulk with
+ * {@link System#arraycopy(Object, int, Object, int, int)}. Not thread-safe;
+ * callers synchronize.
+ */
+class ByteRing {
+	private final byte[] buffer_;
+	private int readCursor_ = 0;
+	private int size_ = 0;
+
+	ByteRing(int capacity) {
+		buffer_ = new byte[capacity];
+	}
+
+	int size() {
+		return size_;
+	}
+
+	boolean isEmpty() {
+		return size_ == 0;
+	}
+
+	boolean isFull() {
+		return size_ == buffer_.length;
+	}
+
+	/** Appends one byte. The ring must not be full. */
+	void put(byte b) {
+		assert (!isFull());
+		buffer_[(readCursor_ + size_) % buffer_.length] = b;
+		++size_;
+	}
+
+	/** Removes the oldest byte. The ring must not be empty. */
+	byte get() {
+		assert (!isEmpty());
+		final byte b = buffer_[readCursor_];
+		readCursor_ = (readCursor_ + 1) % buffer_.length;
+		--size_;
+		return b;
+	}
+
+	/**
+	 * Appends as many bytes as there is room for.
+	 * 
+	 * @return The number of bytes appended.
+	 */
+	int write(byte[] src, int off, int len) {
+		final int count = Math.min(len, buffer_.length - size_);
+		final int writeCursor = (readCursor_ + size_) % buffer_.length;
+		// At most two contiguous runs, before and after the end of the array.
+		final int head = Math.min(count, buffer_.length - writeCursor);
+		System.arraycopy(src, off, buffer_, writeCursor, head);
+		System.arraycopy(src, off + head, buffer_, 0, count - head);
+		size_ += count;
+		return count;
+	}
+
+	/**
+	 * Removes up to len of the oldest bytes.
+	 * 
+	 * @return The number of bytes removed.
+	 */
+	int read(byte[] dst, int off, int len) {
+		final int count = Math.min(len, size_);
+		final int head = Math.min(count, buffer_.length - readCursor_);
+		System.arraycopy(buffer_, readCursor_, dst, off, head);
+		System.arraycopy(buffer_, 0, dst, off + head, count - head);
+		readCursor_ = (readCursor_ + count) % buffer_.length;
+		size_ -= count;
+		return count;
+	}
+}
@@ -30,30 +30,26 @@ package ioio.lib.impl;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.Queue;
-import java.util.concurrent.ArrayBlockingQueue;
 
-class FlowControlledOutputStream extends OutputStream {
+class FlowControlledOutputStream extends OutputStream implements FlushScheduler.Flushable {
 	interface Sender {
 		void send(byte[] data, int size);
 	}
 
 	private final Sender sender_;
-	// We don't actually need the queue to be blocking, but ArrayDeque is only
-	// available since API-9.
-	private final Queue<Byte> queue_ = new ArrayBlockingQueue<Byte>(Constants.BUFFER_SIZE);
-	private final FlushThread thread_ = new FlushThread();
+	private final FlushScheduler scheduler_;
+	private final ByteRing queue_ = new ByteRing(Constants.BUFFER_SIZE);
 	private final int maxPacket_;
 	private final byte[] packet_;
 
 	private int readyToSend_ = 0;
 	private boolean closed_ = false;
 
-	public FlowControlledOutputStream(Sender sender, int maxPacket) {
+	public FlowControlledOutputStream(Sender sender, FlushScheduler scheduler, int maxPacket) {
 		sender_ = sender;
+		scheduler_ = scheduler;
 		maxPacket_ = maxPacket;
 		packet_ = new byte[maxPacket];
-		thread_.start();
 	}
 
 	@Override
@@ -73,7 +69,7 @@ class FlowControlledOutputStream extends OutputStream {
 	@Override
 	synchronized public void write(int oneByte) throws IOException {
 		try {
-			while (!closed_ && !queue_.offer((byte) oneByte)) {
+			while (!closed_ && queue_.isFull()) {
 				wait();
 			}
 		} catch (InterruptedException e) {
@@ -82,12 +78,36 @@ class FlowControlledOutputStream extends OutputStream {
 		if (closed_) {
 			throw new IOException("Stream has been closed");
 		}
-		notifyAll();
+		queue_.put((byte) oneByte);
+		scheduler_.schedule(this);
+	}
+
+	@Override
+	synchronized public void write(byte[] b, int off, int len) throws IOException {
+		if (off < 0 || len < 0 || off + len > b.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		try {
+			while (len > 0) {
+				while (!closed_ && queue_.isFull()) {
+					wait();
+				}
+				if (closed_) {
+					throw new IOException("Stream has been closed");
+				}
+				final int written = queue_.write(b, off, len);
+				off += written;
+				len -= written;
+				scheduler_.schedule(this);
+			}
+		} catch (InterruptedException e) {
+			throw new IOException("Interrupted");
+		}
 	}
 
 	synchronized public void readyToSend(int numBytes) {
 		readyToSend_ += numBytes;
-		notifyAll();
+		scheduler_.schedule(this);
 	}
 
 	@Override
@@ -97,32 +117,23 @@ class FlowControlledOutputStream extends OutputStream {
 		}
 		closed_ = true;
 		notifyAll();
-		thread_.interrupt();
 	}
 
-	class FlushThread extends Thread {
-		@Override
-		public void run() {
-			super.run();
-			try {
-				while (true) {
-					int toSend;
-					synchronized (FlowControlledOutputStream.this) {
-						while (readyToSend_ == 0 || queue_.isEmpty()) {
-							FlowControlledOutputStream.this.wait();
-						}
-						toSend = Math.min(maxPacket_, Math.min(readyToSend_, queue_.size()));
-						for (int i = 0; i < toSend; ++i) {
-							packet_[i] = queue_.remove();
-						}
-						readyToSend_ -= toSend;
-						FlowControlledOutputStream.this.notifyAll();
-					}
-					sender_.send(packet_, toSend);
+	@Override
+	public void flushReady() {
+		while (true) {
+			int toSend;
+			synchronized (this) {
+				if (closed_ || readyToSend_ == 0 || queue_.isEmpty()) {
+					return;
 				}
-			} catch (InterruptedException e) {
-				// This is here to exit the loop.
+				toSend = Math.min(maxPacket_, Math.min(readyToSend_, queue_.size()));
+				queue_.read(packet_, 0, toSend);
+				readyToSend_ -= toSend;
+				notifyAll();
 			}
+			// packet_ is only ever touched by the scheduler thread.
+			sender_.send(packet_, toSend);
 		}
 	}
 }
@@ -32,7 +32,7 @@ import java.io.IOException;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 
-class FlowControlledPacketSender {
+class FlowControlledPacketSender implements FlushScheduler.Flushable {
 	interface Packet {
 		int getSize();
 	}
@@ -42,17 +42,22 @@ class FlowControlledPacketSender {
 	}
 
 	private final Sender sender_;
+	private final FlushScheduler scheduler_;
+	private final LinkCounters counters_;
 	// We don't actually need the queue to be blocking, but ArrayDeque is only
 	// available since API-9.
 	private final Queue<Packet> queue_ = new ArrayBlockingQueue<Packet>(Constants.PACKET_BUFFER_SIZE);
-	private final FlushThread thread_ = new FlushThread();
 
 	private int readyToSend_ = 0;
 	private boolean closed_ = false;
+	private boolean killed_ = false;
+	private boolean stalled_ = false;
 
-	public FlowControlledPacketSender(Sender sender) {
+	public FlowControlledPacketSender(Sender sender, FlushScheduler scheduler,
+			LinkCounters counters) {
 		sender_ = sender;
-		thread_.start();
+		scheduler_ = scheduler;
+		counters_ = counters;
 	}
 
 	synchronized public void flush() throws IOException {
@@ -79,45 +84,47 @@ class FlowControlledPacketSender {
 		if (closed_) {
 			throw new IOException("Stream has been closed");
 		}
-		notifyAll();
+		scheduler_.schedule(this);
 	}
 
 	synchronized public void readyToSend(int numBytes) {
 		readyToSend_ += numBytes;
-		notifyAll();
+		scheduler_.schedule(this);
 	}
 
 	synchronized public void close() {
 		closed_ = true;
-		thread_.interrupt();
+		killed_ = true;
 	}
 
 	synchronized public void kill() {
-		thread_.interrupt();
+		killed_ = true;
 	}
 
-	class FlushThread extends Thread {
-		@Override
-		public void run() {
-			super.run();
-			try {
-				while (true) {
-					Packet p;
-					synchronized (FlowControlledPacketSender.this) {
-						while (queue_.isEmpty() || readyToSend_ < queue_.peek().getSize()) {
-							FlowControlledPacketSender.this.wait();
-						}
-						readyToSend_ -= queue_.peek().getSize();
-						p = queue_.remove();
-						// We now have less room in our outgoing queue and more
-						// room in our incoming queue.
-						FlowControlledPacketSender.this.notifyAll();
+	@Override
+	public void flushReady() {
+		while (true) {
+			Packet p;
+			synchronized (this) {
+				if (killed_ || queue_.isEmpty()) {
+					return;
+				}
+				if (readyToSend_ < queue_.peek().getSize()) {
+					// Count each wait for credit once, however often we are scheduled meanwhile.
+					if (!stalled_) {
+						stalled_ = true;
+						counters_.flowControlStalls_.incrementAndGet();
 					}
-					sender_.send(p);
+					return;
 				}
-			} catch (InterruptedException e) {
-				// This is here to exit the loop.
+				stalled_ = false;
+				readyToSend_ -= queue_.peek().getSize();
+				p = queue_.remove();
+				// We now have less room in our outgoing queue and more
+				// room in our incoming queue.
+				notifyAll();
 			}
+			sender_.send(p);
 		}
 	}
 }
@@ -0,0 +1,82 @@
+package ioio.lib.impl;
+
+import ioio.lib.spi.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single thread flushing every flow-controlled sender of a connection.
+ * <p>
+ * Senders schedule themselves whenever they get new data or new credits from the IOIO. The
+ * thread then lets each scheduled sender send whatever its credits allow, all within a single
+ * protocol batch, so that writes from several modules reach the connection together.
+ */
+class FlushScheduler {
+	interface Flushable {
+		/**
+		 * Sends as much queued data as the available credits allow. Called on the scheduler
+		 * thread, which must not be blocked waiting for credits or data.
+		 */
+		void flushReady();
+	}
+
+	private static final String TAG = "FlushScheduler";
+
+	private final IOIOProtocol protocol_;
+	private final FlushThread thread_ = new FlushThread();
+	// Swapped on each round, so that scheduling never allocates.
+	private List<Flushable> pending_ = new ArrayList<Flushable>();
+	private List<Flushable> flushing_ = new ArrayList<Flushable>();
+
+	FlushScheduler(IOIOProtocol protocol) {
+		protocol_ = protocol;
+		thread_.start();
+	}
+
+	synchronized void schedule(Flushable flushable) {
+		if (!pending_.contains(flushable)) {
+			pending_.add(flushable);
+			notifyAll();
+		}
+	}
+
+	void close() {
+		thread_.interrupt();
+	}
+
+	class FlushThread extends Thread {
+		@Override
+		public void run() {
+			super.run();
+			try {
+				while (true) {
+					synchronized (FlushScheduler.this) {
+						while (pending_.isEmpty()) {
+							FlushScheduler.this.wait();
+						}
+						List<Flushable> temp = flushing_;
+						flushing_ = pending_;
+						pending_ = temp;
+					}
+					protocol_.beginBatch();
+					try {
+						for (Flushable flushable : flushing_) {
+							flushable.flushReady();
+						}
+					} finally {
+						flushing_.clear();
+						try {
+							protocol_.endBatch();
+						} catch (IOException e) {
+							Log.e(TAG, "Flush failed", e);
+						}
+					}
+				}
+			} catch (InterruptedException e) {
+				// This is here to exit the loop.
+			}
+		}
+	}
+}
@@ -28,6 +28,7 @@
  */
 package ioio.lib.impl;
 
+import ioio.lib.api.AnalogFrameListener;
 import ioio.lib.api.AnalogInput;
 import ioio.lib.api.CapSense;
 import ioio.lib.api.DigitalInput;
@@ -37,6 +38,7 @@ import ioio.lib.api.DigitalOutput;
 import ioio.lib.api.IOIO;
 import ioio.lib.api.IOIOConnection;
 import ioio.lib.api.IcspMaster;
+import ioio.lib.api.LinkStatistics;
 import ioio.lib.api.PulseInput;
 import ioio.lib.api.PulseInput.ClockRate;
 import ioio.lib.api.PulseInput.PulseMode;
@@ -90,8 +92,10 @@ public class IOIOImpl implements IOIO, DisconnectListener {
 			'I', 'O', '0', '0', '0', '5' };
 
 	IOIOProtocol protocol_;
+	FlushScheduler flushScheduler_;
 	ResourceManager resourceManager_;
 	IncomingState incomingState_ = new IncomingState();
+	final LinkCounters linkCounters_ = new LinkCounters();
 	Board.Hardware hardware_;
 	private IOIOConnection connection_;
 	private State state_ = State.INIT;
@@ -120,7 +124,8 @@ public class IOIOImpl implements IOIO, DisconnectListener {
 						throw new ConnectionLostException();
 					}
 					protocol_ = new IOIOProtocol(connection_.getInputStream(),
-							connection_.getOutputStream(), incomingState_);
+							connection_.getOutputStream(), incomingState_, linkCounters_);
+					flushScheduler_ = new FlushScheduler(protocol_);
 					// Once this block exits, a disconnect will also involve
 					// softClose().
 				}
@@ -167,6 +172,9 @@ public class IOIOImpl implements IOIO, DisconnectListener {
 	@Override
 	public synchronized void disconnected() {
 		state_ = State.DEAD;
+		if (flushScheduler_ != null) {
+			flushScheduler_.close();
+		}
 		if (disconnect_) {
 			return;
 		}
@@ -666,6 +674,16 @@ public class IOIOImpl implements IOIO, DisconnectListener {
 		}
 	}
 
+	@Override
+	public void setAnalogFrameListener(AnalogFrameListener listener) {
+		incomingState_.analogFrameListener_ = listener;
+	}
+
+	@Override
+	public LinkStatistics getLinkStatistics() {
+		return linkCounters_;
+	}
+
 	@Override
 	public void sync() throws ConnectionLostException, InterruptedException {
 		boolean added = false;
@@ -38,11 +38,6 @@ import ioio.lib.spi.Log;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Set;
 
 class IOIOProtocol {
 	static final int HARD_RESET                          = 0x00;
@@ -169,6 +164,12 @@ class IOIOProtocol {
 		assert (b >= 0 && b < 256);
 		// Log.v(TAG, "sending: 0x" + Integer.toHexString(b));
 		out_.write(b);
+		++counters_.bytesOut_;
+	}
+
+	private void writeCommand(int command) throws IOException {
+		++counters_.commandsOut_;
+		writeByte(command);
 	}
 
 	private void writeBytes(byte[] buf, int offset, int size) throws IOException {
@@ -200,13 +201,13 @@ class IOIOProtocol {
 
 	public synchronized void sync() throws IOException {
 		beginBatch();
-		writeByte(SYNC);
+		writeCommand(SYNC);
 		endBatch();
 	}
 
 	synchronized public void hardReset() throws IOException {
 		beginBatch();
-		writeByte(HARD_RESET);
+		writeCommand(HARD_RESET);
 		writeByte('I');
 		writeByte('O');
 		writeByte('I');
@@ -216,13 +217,13 @@ class IOIOProtocol {
 
 	synchronized public void softReset() throws IOException {
 		beginBatch();
-		writeByte(SOFT_RESET);
+		writeCommand(SOFT_RESET);
 		endBatch();
 	}
 
 	synchronized public void softClose() throws IOException {
 		beginBatch();
-		writeByte(SOFT_CLOSE);
+		writeCommand(SOFT_CLOSE);
 		endBatch();
 	}
 
@@ -231,7 +232,7 @@ class IOIOProtocol {
 			throw new IllegalArgumentException("interface ID must be exactly 8 bytes long");
 		}
 		beginBatch();
-		writeByte(CHECK_INTERFACE);
+		writeCommand(CHECK_INTERFACE);
 		for (int i = 0; i < 8; ++i) {
 			writeByte(interfaceId[i]);
 		}
@@ -240,14 +241,14 @@ class IOIOProtocol {
 
 	synchronized public void setDigitalOutLevel(int pin, boolean level) throws IOException {
 		beginBatch();
-		writeByte(SET_DIGITAL_OUT_LEVEL);
+		writeCommand(SET_DIGITAL_OUT_LEVEL);
 		writeByte(pin << 2 | (level ? 1 : 0));
 		endBatch();
 	}
 
 	synchronized public void setPinPwm(int pin, int pwmNum, boolean enable) throws IOException {
 		beginBatch();
-		writeByte(SET_PIN_PWM);
+		writeCommand(SET_PIN_PWM);
 		writeByte(pin & 0x3F);
 		writeByte((enable ? 0x80 : 0x00) | (pwmNum & 0x0F));
 		endBatch();
@@ -256,7 +257,7 @@ class IOIOProtocol {
 	synchronized public void setPwmDutyCycle(int pwmNum, int dutyCycle, int fraction)
 			throws IOException {
 		beginBatch();
-		writeByte(SET_PWM_DUTY_CYCLE);
+		writeCommand(SET_PWM_DUTY_CYCLE);
 		writeByte(pwmNum << 2 | fraction);
 		writeTwoBytes(dutyCycle);
 		endBatch();
@@ -265,7 +266,7 @@ class IOIOProtocol {
 	synchronized public void setPwmPeriod(int pwmNum, int period, PwmScale scale)
 			throws IOException {
 		beginBatch();
-		writeByte(SET_PWM_PERIOD);
+		writeCommand(SET_PWM_PERIOD);
 		writeByte(((scale.encoding & 0x02) << 6) | (pwmNum << 1) | (scale.encoding & 0x01));
 		writeTwoBytes(period);
 		endBatch();
@@ -273,7 +274,7 @@ class IOIOProtocol {
 
 	synchronized public void setPinIncap(int pin, int incapNum, boolean enable) throws IOException {
 		beginBatch();
-		writeByte(SET_PIN_INCAP);
+		writeCommand(SET_PIN_INCAP);
 		writeByte(pin);
 		writeByte(incapNum | (enable ? 0x80 : 0x00));
 		endBatch();
@@ -281,7 +282,7 @@ class IOIOProtocol {
 
 	synchronized public void incapClose(int incapNum, boolean double_prec) throws IOException {
 		beginBatch();
-		writeByte(INCAP_CONFIGURE);
+		writeCommand(INCAP_CONFIGURE);
 		writeByte(incapNum);
 		writeByte(double_prec ? 0x80 : 0x00);
 		endBatch();
@@ -290,7 +291,7 @@ class IOIOProtocol {
 	synchronized public void incapConfigure(int incapNum, boolean double_prec, int mode, int clock)
 			throws IOException {
 		beginBatch();
-		writeByte(INCAP_CONFIGURE);
+		writeCommand(INCAP_CONFIGURE);
 		writeByte(incapNum);
 		writeByte((double_prec ? 0x80 : 0x00) | (mode << 3) | clock);
 		endBatch();
@@ -299,7 +300,7 @@ class IOIOProtocol {
 	synchronized public void i2cWriteRead(int i2cNum, boolean tenBitAddr, int address,
 			int writeSize, int readSize, byte[] writeData) throws IOException {
 		beginBatch();
-		writeByte(I2C_WRITE_READ);
+		writeCommand(I2C_WRITE_READ);
 		writeByte(((address >> 8) << 6) | (tenBitAddr ? 0x20 : 0x00) | i2cNum);
 		writeByte(address & 0xFF);
 		writeByte(writeSize);
@@ -313,7 +314,7 @@ class IOIOProtocol {
 	synchronized public void setPinDigitalOut(int pin, boolean value, DigitalOutput.Spec.Mode mode)
 			throws IOException {
 		beginBatch();
-		writeByte(SET_PIN_DIGITAL_OUT);
+		writeCommand(SET_PIN_DIGITAL_OUT);
 		writeByte((pin << 2) | (mode == DigitalOutput.Spec.Mode.OPEN_DRAIN ? 0x01 : 0x00)
 				| (value ? 0x02 : 0x00));
 		endBatch();
@@ -328,14 +329,14 @@ class IOIOProtocol {
 			pull = 2;
 		}
 		beginBatch();
-		writeByte(SET_PIN_DIGITAL_IN);
+		writeCommand(SET_PIN_DIGITAL_IN);
 		writeByte((pin << 2) | pull);
 		endBatch();
 	}
 
 	synchronized public void setChangeNotify(int pin, boolean changeNotify) throws IOException {
 		beginBatch();
-		writeByte(SET_CHANGE_NOTIFY);
+		writeCommand(SET_CHANGE_NOTIFY);
 		writeByte((pin << 2) | (changeNotify ? 0x01 : 0x00));
 		endBatch();
 	}
@@ -347,14 +348,14 @@ class IOIOProtocol {
 
 	synchronized public void setPinAnalogIn(int pin) throws IOException {
 		beginBatch();
-		writeByte(SET_PIN_ANALOG_IN);
+		writeCommand(SET_PIN_ANALOG_IN);
 		writeByte(pin);
 		endBatch();
 	}
 
 	synchronized public void setAnalogInSampling(int pin, boolean enable) throws IOException {
 		beginBatch();
-		writeByte(SET_ANALOG_IN_SAMPLING);
+		writeCommand(SET_ANALOG_IN_SAMPLING);
 		writeByte((enable ? 0x80 : 0x00) | (pin & 0x3F));
 		endBatch();
 	}
@@ -365,7 +366,7 @@ class IOIOProtocol {
 					"A maximum of 64 bytes can be sent in one uartData message. Got: " + numBytes);
 		}
 		beginBatch();
-		writeByte(UART_DATA);
+		writeCommand(UART_DATA);
 		writeByte((numBytes - 1) | uartNum << 6);
 		for (int i = 0; i < numBytes; ++i) {
 			writeByte(((int) data[i]) & 0xFF);
@@ -377,7 +378,7 @@ class IOIOProtocol {
 			Uart.StopBits stopbits, Uart.Parity parity) throws IOException {
 		int parbits = parity == Uart.Parity.EVEN ? 1 : (parity == Uart.Parity.ODD ? 2 : 0);
 		beginBatch();
-		writeByte(UART_CONFIG);
+		writeCommand(UART_CONFIG);
 		writeByte((uartNum << 6) | (speed4x ? 0x08 : 0x00)
 				| (stopbits == Uart.StopBits.TWO ? 0x04 : 0x00) | parbits);
 		writeTwoBytes(rate);
@@ -386,7 +387,7 @@ class IOIOProtocol {
 
 	synchronized public void uartClose(int uartNum) throws IOException {
 		beginBatch();
-		writeByte(UART_CONFIG);
+		writeCommand(UART_CONFIG);
 		writeByte(uartNum << 6);
 		writeTwoBytes(0);
 		endBatch();
@@ -395,7 +396,7 @@ class IOIOProtocol {
 	synchronized public void setPinUart(int pin, int uartNum, boolean tx, boolean enable)
 			throws IOException {
 		beginBatch();
-		writeByte(SET_PIN_UART);
+		writeCommand(SET_PIN_UART);
 		writeByte(pin);
 		writeByte((enable ? 0x80 : 0x00) | (tx ? 0x40 : 0x00) | uartNum);
 		endBatch();
@@ -404,7 +405,7 @@ class IOIOProtocol {
 	synchronized public void spiConfigureMaster(int spiNum, SpiMaster.Config config)
 			throws IOException {
 		beginBatch();
-		writeByte(SPI_CONFIGURE_MASTER);
+		writeCommand(SPI_CONFIGURE_MASTER);
 		writeByte((spiNum << 5) | SCALE_DIV[config.rate.ordinal()]);
 		writeByte((config.sampleOnTrailing ? 0x00 : 0x02) | (config.invertClk ? 0x01 : 0x00));
 		endBatch();
@@ -412,7 +413,7 @@ class IOIOProtocol {
 
 	synchronized public void spiClose(int spiNum) throws IOException {
 		beginBatch();
-		writeByte(SPI_CONFIGURE_MASTER);
+		writeCommand(SPI_CONFIGURE_MASTER);
 		writeByte(spiNum << 5);
 		writeByte(0x00);
 		endBatch();
@@ -421,7 +422,7 @@ class IOIOProtocol {
 	synchronized public void setPinSpi(int pin, int mode, boolean enable, int spiNum)
 			throws IOException {
 		beginBatch();
-		writeByte(SET_PIN_SPI);
+		writeCommand(SET_PIN_SPI);
 		writeByte(pin);
 		writeByte((1 << 4) | (mode << 2) | spiNum);
 		endBatch();
@@ -432,7 +433,7 @@ class IOIOProtocol {
 		final boolean dataNeqTotal = (dataBytes != totalBytes);
 		final boolean resNeqTotal = (responseBytes != totalBytes);
 		beginBatch();
-		writeByte(SPI_MASTER_REQUEST);
+		writeCommand(SPI_MASTER_REQUEST);
 		writeByte((spiNum << 6) | ssPin);
 		writeByte((dataNeqTotal ? 0x80 : 0x00) | (resNeqTotal ? 0x40 : 0x00) | totalBytes - 1);
 		if (dataNeqTotal) {
@@ -451,67 +452,67 @@ class IOIOProtocol {
 			throws IOException {
 		int rateBits = (rate == Rate.RATE_1MHz ? 3 : (rate == Rate.RATE_400KHz ? 2 : 1));
 		beginBatch();
-		writeByte(I2C_CONFIGURE_MASTER);
+		writeCommand(I2C_CONFIGURE_MASTER);
 		writeByte((smbusLevels ? 0x80 : 0) | (rateBits << 5) | i2cNum);
 		endBatch();
 	}
 
 	synchronized public void i2cClose(int i2cNum) throws IOException {
 		beginBatch();
-		writeByte(I2C_CONFIGURE_MASTER);
+		writeCommand(I2C_CONFIGURE_MASTER);
 		writeByte(i2cNum);
 		endBatch();
 	}
 
 	synchronized public void icspOpen() throws IOException {
 		beginBatch();
-		writeByte(ICSP_CONFIG);
+		writeCommand(ICSP_CONFIG);
 		writeByte(0x01);
 		endBatch();
 	}
 
 	synchronized public void icspClose() throws IOException {
 		beginBatch();
-		writeByte(ICSP_CONFIG);
+		writeCommand(ICSP_CONFIG);
 		writeByte(0x00);
 		endBatch();
 	}
 
 	synchronized public void icspEnter() throws IOException {
 		beginBatch();
-		writeByte(ICSP_PROG_ENTER);
+		writeCommand(ICSP_PROG_ENTER);
 		endBatch();
 	}
 
 	synchronized public void icspExit() throws IOException {
 		beginBatch();
-		writeByte(ICSP_PROG_EXIT);
+		writeCommand(ICSP_PROG_EXIT);
 		endBatch();
 	}
 
 	synchronized public void icspSix(int instruction) throws IOException {
 		beginBatch();
-		writeByte(ICSP_SIX);
+		writeCommand(ICSP_SIX);
 		writeThreeBytes(instruction);
 		endBatch();
 	}
 
 	synchronized public void icspRegout() throws IOException {
 		beginBatch();
-		writeByte(ICSP_REGOUT);
+		writeCommand(ICSP_REGOUT);
 		endBatch();
 	}
 
 	synchronized public void setPinCapSense(int pinNum) throws IOException {
 		beginBatch();
-		writeByte(SET_PIN_CAPSENSE);
+		writeCommand(SET_PIN_CAPSENSE);
 		writeByte(pinNum & 0x3F);
 		endBatch();
 	}
 
 	synchronized public void setCapSenseSampling(int pinNum, boolean enable) throws IOException {
 		beginBatch();
-		writeByte(SET_CAPSENSE_SAMPLING);
+		writeCommand(SET_CAPSENSE_SAMPLING);
 		writeByte((pinNum & 0x3F) | (enable ? 0x80 : 0x00));
 		endBatch();
 	}
@@ -521,7 +522,7 @@ class IOIOProtocol {
 		assert size >= 0 && size <= 68;
 
 		beginBatch();
-		writeByte(SEQUENCER_CONFIGURE);
+		writeCommand(SEQUENCER_CONFIGURE);
 		writeByte(size);
 		writeBytes(config, 0, size);
 		endBatch();
@@ -529,7 +530,7 @@ class IOIOProtocol {
 
 	synchronized public void sequencerClose() throws IOException {
 		beginBatch();
-		writeByte(SEQUENCER_CONFIGURE);
+		writeCommand(SEQUENCER_CONFIGURE);
 		writeByte(0);
 		endBatch();
 	}
@@ -540,7 +541,7 @@ class IOIOProtocol {
 		assert duration < (1 << 16);
 
 		beginBatch();
-		writeByte(SEQUENCER_PUSH);
+		writeCommand(SEQUENCER_PUSH);
 		writeTwoBytes(duration);
 		writeBytes(cue, 0, size);
 		endBatch();
@@ -548,28 +549,28 @@ class IOIOProtocol {
 
 	synchronized public void sequencerStop() throws IOException {
 		beginBatch();
-		writeByte(SEQUENCER_CONTROL);
+		writeCommand(SEQUENCER_CONTROL);
 		writeByte(0);
 		endBatch();
 	}
 
 	synchronized public void sequencerStart() throws IOException {
 		beginBatch();
-		writeByte(SEQUENCER_CONTROL);
+		writeCommand(SEQUENCER_CONTROL);
 		writeByte(1);
 		endBatch();
 	}
 
 	synchronized public void sequencerPause() throws IOException {
 		beginBatch();
-		writeByte(SEQUENCER_CONTROL);
+		writeCommand(SEQUENCER_CONTROL);
 		writeByte(2);
 		endBatch();
 	}
 
 	synchronized public void sequencerManualStart(byte[] cue, int size) throws IOException {
 		beginBatch();
-		writeByte(SEQUENCER_CONTROL);
+		writeCommand(SEQUENCER_CONTROL);
 		writeByte(3);
 		writeBytes(cue, 0, size);
 		endBatch();
@@ -577,7 +578,7 @@ class IOIOProtocol {
 
 	synchronized public void sequencerManualStop() throws IOException {
 		beginBatch();
-		writeByte(SEQUENCER_CONTROL);
+		writeCommand(SEQUENCER_CONTROL);
 		writeByte(4);
 		endBatch();
 	}
@@ -602,7 +603,11 @@ class IOIOProtocol {
 
 		public void handleAnalogPinStatus(int pin, boolean open);
 
-		public void handleReportAnalogInStatus(List<Integer> pins, List<Integer> values);
+		/**
+		 * The arrays are owned by the protocol and reused for the next frame: only the first
+		 * numPins elements are valid, and only for the duration of the call.
+		 */
+		public void handleReportAnalogInStatus(int[] pins, int[] values, int numPins);
 
 		public void handleUartOpen(int uartNum);
 
@@ -652,29 +657,40 @@ class IOIOProtocol {
 	}
 
 	class IncomingThread extends Thread {
-		private List<Integer> analogPinValues_ = new ArrayList<Integer>();
-		private List<Integer> analogFramePins_ = new ArrayList<Integer>();
-		private List<Integer> newFramePins_ = new ArrayList<Integer>();
-		private Set<Integer> removedPins_ = new HashSet<Integer>();
-		private Set<Integer> addedPins_ = new HashSet<Integer>();
+		// Pin numbers are sent as single bytes, so every array below can be sized once.
+		private int[] analogFramePins_ = new int[256];
+		private int[] newFramePins_ = new int[256];
+		private int analogFrameSize_ = 0;
+		private int newFrameSize_ = 0;
+		private final int[] analogPinValues_ = new int[256];
+		private final boolean[] inNewFrame_ = new boolean[256];
 
 		private void calculateAnalogFrameDelta() {
-			removedPins_.clear();
-			removedPins_.addAll(analogFramePins_);
-			addedPins_.clear();
-			addedPins_.addAll(newFramePins_);
-			// Remove the intersection from both.
-			for (Iterator<Integer> it = removedPins_.iterator(); it.hasNext();) {
-				Integer current = it.next();
-				if (addedPins_.contains(current)) {
-					it.remove();
-					addedPins_.remove(current);
+			for (int i = 0; i < newFrameSize_; ++i) {
+				inNewFrame_[newFramePins_[i]] = true;
+			}
+			// Pins leaving the frame, then pins joining it. Pins in both frames remain marked in
+			// inNewFrame_ only until the old frame has been scanned.
+			for (int i = 0; i < analogFrameSize_; ++i) {
+				final int pin = analogFramePins_[i];
+				if (inNewFrame_[pin]) {
+					inNewFrame_[pin] = false;
+				} else {
+					handler_.handleAnalogPinStatus(pin, false);
+				}
+			}
+			for (int i = 0; i < newFrameSize_; ++i) {
+				final int pin = newFramePins_[i];
+				if (inNewFrame_[pin]) {
+					inNewFrame_[pin] = false;
+					handler_.handleAnalogPinStatus(pin, true);
 				}
 			}
 			// swap
-			List<Integer> temp = analogFramePins_;
+			int[] temp = analogFramePins_;
 			analogFramePins_ = newFramePins_;
 			newFramePins_ = temp;
+			analogFrameSize_ = newFrameSize_;
 		}
 
 		private int readByte() throws IOException {
@@ -683,6 +699,7 @@ class IOIOProtocol {
 				if (b < 0) {
 					throw new IOException("Unexpected stream closure");
 				}
+				++counters_.bytesIn_;
 
 				// Log.v(TAG, "received: 0x" + Integer.toHexString(b));
 				return b;
@@ -709,7 +726,9 @@ class IOIOProtocol {
 			byte[] data = new byte[256];
 			try {
 				while (true) {
-					switch (arg1 = readByte()) {
+					arg1 = readByte();
+					++counters_.commandsIn_;
+					switch (arg1) {
 					case ESTABLISH_CONNECTION:
 						if (readByte() != 'I' || readByte() != 'O' || readByte() != 'I'
 								|| readByte() != 'O') {
@@ -726,7 +745,7 @@ class IOIOProtocol {
 						break;
 
 					case SOFT_RESET:
-						analogFramePins_.clear();
+						analogFrameSize_ = 0;
 						handler_.handleSoftReset();
 						break;
 
@@ -750,31 +769,24 @@ class IOIOProtocol {
 
 					case REPORT_ANALOG_IN_FORMAT:
 						numPins = readByte();
-						newFramePins_.clear();
 						for (int i = 0; i < numPins; ++i) {
-							newFramePins_.add(readByte());
+							newFramePins_[i] = readByte();
 						}
+						newFrameSize_ = numPins;
 						calculateAnalogFrameDelta();
-						for (Integer i : removedPins_) {
-							handler_.handleAnalogPinStatus(i, false);
-						}
-						for (Integer i : addedPins_) {
-							handler_.handleAnalogPinStatus(i, true);
-						}
 						break;
 
 					case REPORT_ANALOG_IN_STATUS:
-						numPins = analogFramePins_.size();
+						numPins = analogFrameSize_;
 						int header = 0;
-						analogPinValues_.clear();
 						for (int i = 0; i < numPins; ++i) {
 							if (i % 4 == 0) {
 								header = readByte();
 							}
-							analogPinValues_.add((readByte() << 2) | (header & 0x03));
+							analogPinValues_[i] = (readByte() << 2) | (header & 0x03);
 							header >>= 2;
 						}
-						handler_.handleReportAnalogInStatus(analogFramePins_, analogPinValues_);
+						handler_.handleReportAnalogInStatus(analogFramePins_, analogPinValues_, numPins);
 						break;
 
 					case UART_REPORT_TX_STATUS:
@@ -952,12 +964,15 @@ class IOIOProtocol {
 	private final InputStream in_;
 	private final OutputStream out_;
 	private final IncomingHandler handler_;
+	private final LinkCounters counters_;
 	private final IncomingThread thread_ = new IncomingThread();
 
-	public IOIOProtocol(InputStream in, OutputStream out, IncomingHandler handler) {
+	public IOIOProtocol(InputStream in, OutputStream out, IncomingHandler handler,
+			LinkCounters counters) {
 		in_ = in;
 		out_ = out;
 		handler_ = handler;
+		counters_ = counters;
 		thread_.start();
 	}
 }
@@ -28,6 +28,7 @@
  */
 package ioio.lib.impl;
 
+import ioio.lib.api.AnalogFrameListener;
 import ioio.lib.api.exception.ConnectionLostException;
 import ioio.lib.impl.Board.Hardware;
 import ioio.lib.impl.IOIOProtocol.IncomingHandler;
@@ -35,7 +36,6 @@ import ioio.lib.impl.IOIOProtocol.SequencerEvent;
 import ioio.lib.spi.Log;
 
 import java.util.HashSet;
-import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -43,6 +43,11 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 class IncomingState implements IncomingHandler {
 	private static final String TAG = "IncomingState";
 
+	// Number of the analog frame being dispatched. Every sampled pin gets exactly one value per
+	// frame. Only accessed from the protocol thread.
+	long analogFrame_ = -1;
+	volatile AnalogFrameListener analogFrameListener_;
+
 	enum ConnectionState {
 		INIT, ESTABLISHED, CONNECTED, DISCONNECTED, UNSUPPORTED_IID
 	}
@@ -431,11 +436,15 @@ class IncomingState implements IncomingHandler {
 	}
 
 	@Override
-	public void handleReportAnalogInStatus(List<Integer> pins,
-			List<Integer> values) {
+	public void handleReportAnalogInStatus(int[] pins, int[] values, int numPins) {
 		// logMethod("handleReportAnalogInStatus", pins, values);
-		for (int i = 0; i < pins.size(); ++i) {
-			intputPinStates_[pins.get(i)].setValue(values.get(i));
+		++analogFrame_;
+		final AnalogFrameListener listener = analogFrameListener_;
+		if (listener != null) {
+			listener.frameReceived(analogFrame_, pins, values, numPins);
+		}
+		for (int i = 0; i < numPins; ++i) {
+			intputPinStates_[pins[i]].setValue(values[i]);
 		}
 	}
 
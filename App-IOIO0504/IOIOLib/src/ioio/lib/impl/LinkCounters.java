@@ -0,0 +1,44 @@
+package ioio.lib.impl;
+
+import ioio.lib.api.LinkStatistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The counters behind {@link LinkStatistics}. The incoming counters are only written by the
+ * protocol thread, and the outgoing ones while holding the {@link IOIOProtocol} monitor, so a plain
+ * increment of a volatile is enough. The stalls are counted by every flow controlled sender, hence
+ * atomically.
+ */
+class LinkCounters implements LinkStatistics {
+	volatile long bytesIn_ = 0;
+	volatile long commandsIn_ = 0;
+	volatile long bytesOut_ = 0;
+	volatile long commandsOut_ = 0;
+	final AtomicLong flowControlStalls_ = new AtomicLong();
+
+	@Override
+	public long getBytesIn() {
+		return bytesIn_;
+	}
+
+	@Override
+	public long getBytesOut() {
+		return bytesOut_;
+	}
+
+	@Override
+	public long getCommandsIn() {
+		return commandsIn_;
+	}
+
+	@Override
+	public long getCommandsOut() {
+		return commandsOut_;
+	}
+
+	@Override
+	public long getFlowControlStalls() {
+		return flowControlStalls_.get();
+	}
+}
@@ -32,16 +32,13 @@ import ioio.lib.spi.Log;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Queue;
-import java.util.concurrent.ArrayBlockingQueue;
 
 class QueueInputStream extends InputStream {
 	private enum State {
 		OPEN, CLOSED, KILLED
 	};
 
-	private final Queue<Byte> queue_ = new ArrayBlockingQueue<Byte>(
-			Constants.BUFFER_SIZE);
+	private final ByteRing queue_ = new ByteRing(Constants.BUFFER_SIZE);
 	private State state_ = State.OPEN;
 
 	@Override
@@ -56,7 +53,7 @@ class QueueInputStream extends InputStream {
 			if (state_ == State.CLOSED && queue_.isEmpty()) {
 				return -1;
 			}
-			return ((int) queue_.remove()) & 0xFF;
+			return ((int) queue_.get()) & 0xFF;
 		} catch (InterruptedException e) {
 			throw new IOException("Interrupted");
 		}
@@ -77,25 +74,15 @@ class QueueInputStream extends InputStream {
 			if (state_ == State.CLOSED && queue_.isEmpty()) {
 				return -1;
 			}
-			if (len > queue_.size()) {
-				len = queue_.size();
-			}
-			for (int i = 0; i < len; ++i) {
-				b[off++] = queue_.remove();
-			}
-			return len;
+			return queue_.read(b, off, len);
 		} catch (InterruptedException e) {
 			throw new IOException("Interrupted");
 		}
 	}
 
 	synchronized public void write(byte[] data, int size) {
-		for (int i = 0; i < size; ++i) {
-			if (queue_.size() == Constants.BUFFER_SIZE) {
-				Log.e("QueueInputStream", "Buffer overflow, discarding data");
-				break;
-			}
-			queue_.add(data[i]);
+		if (queue_.write(data, 0, size) < size) {
+			Log.e("QueueInputStream", "Buffer overflow, discarding data");
 		}
 		notifyAll();
 	}
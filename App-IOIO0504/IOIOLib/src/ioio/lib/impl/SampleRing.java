@@ -0,0 +1,160 @@
+package ioio.lib.impl;
+
+/**
+ * A lock-free single-producer / single-consumer ring of analog samples.
+ * <p>
+ * The producer (the protocol thread) never waits: when the ring is full it overwrites the oldest
+ * sample, same as the former locked buffer did. The consumer detects that it has been lapped by
+ * comparing the cursors, and accounts the samples it missed as overflow. Both cursors are
+ * monotonic sample counts, each written by a single thread.
+ * <p>
+ * The producer stores a sample before it publishes the write cursor, so the slot of the oldest
+ * sample may already be changing once writeCount_ == read + samples_.length. That sample is
+ * treated as overwritten, and the array has one slot more than the capacity to make up for it.
+ */
+class SampleRing {
+	private final short[] samples_;
+	private volatile long writeCount_ = 0;
+	private volatile long readCount_ = 0;
+	private volatile int overflowCount_ = 0;
+	// The analog frame of the first sample, published before writeCount_ leaves 0.
+	private volatile long firstFrame_ = -1;
+
+	SampleRing(int capacity) {
+		samples_ = new short[capacity + 1];
+	}
+
+	/**
+	 * Producer side.
+	 *
+	 * @param frame
+	 *            The analog frame the sample belongs to. The pin is sampled in every frame, so
+	 *            the following samples belong to the following frames.
+	 */
+	void push(short value, long frame) {
+		final long write = writeCount_;
+		if (write == 0) {
+			firstFrame_ = frame;
+		}
+		samples_[(int) (write % samples_.length)] = value;
+		writeCount_ = write + 1;
+	}
+
+	/**
+	 * Consumer side. Takes the oldest unread sample, without blocking.
+	 *
+	 * @return The sample, or -1 if the ring is empty.
+	 */
+	int read() {
+		while (true) {
+			final long read = skipOverwritten();
+			if (writeCount_ == read) {
+				return -1;
+			}
+			final int value = samples_[(int) (read % samples_.length)];
+			readCount_ = read + 1;
+			if (writeCount_ - samples_.length < read) {
+				return value;
+			}
+			// Lapped by the producer while reading, the value is a newer sample.
+			++overflowCount_;
+		}
+	}
+
+	/**
+	 * Consumer side. Copies up to len of the oldest unread samples, without blocking. Each sample
+	 * is stored as (sample / 1023) * scale, the same float arithmetic as single reads.
+	 *
+	 * @return The number of samples copied, 0 if the ring is empty.
+	 */
+	int read(float[] dst, int off, int len, float scale) {
+		final int capacity = samples_.length;
+		final long read = skipOverwritten();
+		final int count = (int) Math.min(len, writeCount_ - read);
+		for (int i = 0; i < count; ++i) {
+			dst[off + i] = (float) samples_[(int) ((read + i) % capacity)] / 1023.0f * scale;
+		}
+		// The producer may have lapped us while copying, in which case the first samples are
+		// newer ones and have to be dropped.
+		final int lost = (int) Math.min(count, Math.max(0, writeCount_ - capacity + 1 - read));
+		if (lost > 0) {
+			overflowCount_ += lost;
+			System.arraycopy(dst, off + lost, dst, off, count - lost);
+		}
+		readCount_ = read + count;
+		return count - lost;
+	}
+
+	/**
+	 * Consumer side. Copies up to len of the oldest unread samples, as raw counts, without
+	 * blocking.
+	 *
+	 * @return The number of samples copied, 0 if the ring is empty.
+	 */
+	int read(short[] dst, int off, int len) {
+		final int capacity = samples_.length;
+		final long read = skipOverwritten();
+		final int count = (int) Math.min(len, writeCount_ - read);
+		// At most two contiguous runs, before and after the end of the array.
+		final int first = (int) (read % capacity);
+		final int head = Math.min(count, capacity - first);
+		System.arraycopy(samples_, first, dst, off, head);
+		System.arraycopy(samples_, 0, dst, off + head, count - head);
+		final int lost = (int) Math.min(count, Math.max(0, writeCount_ - capacity + 1 - read));
+		if (lost > 0) {
+			overflowCount_ += lost;
+			System.arraycopy(dst, off + lost, dst, off, count - lost);
+		}
+		readCount_ = read + count;
+		return count - lost;
+	}
+
+	/**
+	 * Consumer side. Moves the read cursor to the sample of the given frame, dropping the older
+	 * samples without accounting them as overflow. The frame must have arrived already.
+	 *
+	 * @return false if the sample of that frame has already been read or overwritten.
+	 */
+	boolean seek(long frame) {
+		final long read = skipOverwritten();
+		final long target = frame - firstFrame_;
+		if (target < read || target >= writeCount_) {
+			return false;
+		}
+		readCount_ = target;
+		return true;
+	}
+
+	/** @return The analog frame of the newest sample, or -1 if none has arrived. */
+	long newestFrame() {
+		final long write = writeCount_;
+		return write == 0 ? -1 : firstFrame_ + write - 1;
+	}
+
+	/** @return The analog frame of the next sample to be read. */
+	long nextFrame() {
+		return firstFrame_ + readCount_;
+	}
+
+	/** Consumer side. */
+	private long skipOverwritten() {
+		final long read = readCount_;
+		final long missed = writeCount_ - samples_.length + 1 - read;
+		if (missed <= 0) {
+			return read;
+		}
+		overflowCount_ += (int) missed;
+		readCount_ = read + missed;
+		return read + missed;
+	}
+
+	int available() {
+		return (int) Math.min(samples_.length - 1, writeCount_ - readCount_);
+	}
+
+	int getOverflowCount() {
+		// Includes the samples overwritten since the last read, not accounted yet.
+		return overflowCount_
+				+ (int) Math.max(0, writeCount_ - samples_.length + 1 - readCount_);
+	}
+}
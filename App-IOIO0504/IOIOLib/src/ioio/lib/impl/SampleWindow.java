@@ -0,0 +1,95 @@
+package ioio.lib.impl;
+
+import ioio.lib.api.AnalogInput;
+
+/**
+ * Running statistics over the last samples of an analog pin.
+ * <p>
+ * Every push is O(1) (amortized, for the extremes) and does not allocate: the sum and sum of
+ * squares are updated by adding the incoming sample and subtracting the evicted one, while the
+ * minimum and maximum are the heads of two monotonic queues of sample sequence numbers. Not
+ * thread-safe; callers synchronize.
+ */
+class SampleWindow {
+	private final short[] samples_;
+	private final long[] minQueue_;
+	private final long[] maxQueue_;
+	private int minHead_, minTail_, minSize_;
+	private int maxHead_, maxTail_, maxSize_;
+	private long pushed_ = 0;
+	private long sum_ = 0;
+	private long sumOfSquares_ = 0;
+
+	SampleWindow(int size) {
+		samples_ = new short[size];
+		minQueue_ = new long[size];
+		maxQueue_ = new long[size];
+	}
+
+	void push(int value) {
+		final int size = samples_.length;
+		final int slot = (int) (pushed_ % size);
+		if (pushed_ >= size) {
+			final int evicted = samples_[slot];
+			sum_ -= evicted;
+			sumOfSquares_ -= evicted * evicted;
+		}
+		samples_[slot] = (short) value;
+		sum_ += value;
+		sumOfSquares_ += value * value;
+
+		// Drop from the front whatever is leaving the window, and from the back whatever can no
+		// longer be an extreme.
+		final long oldest = pushed_ - size + 1;
+		if (minSize_ > 0 && minQueue_[minHead_] < oldest) {
+			minHead_ = next(minHead_);
+			--minSize_;
+		}
+		while (minSize_ > 0 && valueAt(minQueue_[back(minTail_)]) >= value) {
+			minTail_ = back(minTail_);
+			--minSize_;
+		}
+		minQueue_[minTail_] = pushed_;
+		minTail_ = next(minTail_);
+		++minSize_;
+
+		if (maxSize_ > 0 && maxQueue_[maxHead_] < oldest) {
+			maxHead_ = next(maxHead_);
+			--maxSize_;
+		}
+		while (maxSize_ > 0 && valueAt(maxQueue_[back(maxTail_)]) <= value) {
+			maxTail_ = back(maxTail_);
+			--maxSize_;
+		}
+		maxQueue_[maxTail_] = pushed_;
+		maxTail_ = next(maxTail_);
+		++maxSize_;
+
+		++pushed_;
+	}
+
+	void get(AnalogInput.WindowStatistics statistics) {
+		statistics.count = (int) Math.min(pushed_, samples_.length);
+		statistics.sum = sum_;
+		statistics.sumOfSquares = sumOfSquares_;
+		if (statistics.count > 0) {
+			statistics.min = valueAt(minQueue_[minHead_]);
+			statistics.max = valueAt(maxQueue_[maxHead_]);
+		} else {
+			statistics.min = 0;
+			statistics.max = 0;
+		}
+	}
+
+	private int valueAt(long sequence) {
+		return samples_[(int) (sequence % samples_.length)];
+	}
+
+	private int next(int index) {
+		return index + 1 == samples_.length ? 0 : index + 1;
+	}
+
+	private int back(int index) {
+		return index == 0 ? samples_.length - 1 : index - 1;
+	}
+}
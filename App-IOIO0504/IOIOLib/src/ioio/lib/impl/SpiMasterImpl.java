@@ -81,7 +81,7 @@ class SpiMasterImpl extends AbstractResource implements SpiMaster, DataModuleLis
 	}
 
 	private final Queue<SpiResult> pendingRequests_ = new ConcurrentLinkedQueue<SpiMasterImpl.SpiResult>();
-	private final FlowControlledPacketSender outgoing_ = new FlowControlledPacketSender(this);
+	private final FlowControlledPacketSender outgoing_;
 
 	private final Resource spi_;
 	private final Resource[] indexToSsPin_;
@@ -97,6 +97,8 @@ class SpiMasterImpl extends AbstractResource implements SpiMaster, DataModuleLis
 		misoPin_ = misoPin;
 		clkPin_ = clkPin;
 		indexToSsPin_ = ssPins.clone();
+		outgoing_ = new FlowControlledPacketSender(this, ioio.flushScheduler_,
+				ioio.linkCounters_);
 	}
 
 	@Override
@@ -87,8 +87,7 @@ class TwiMasterImpl extends AbstractResource implements TwiMaster,
 	}
 
 	private final Queue<TwiResult> pendingRequests_ = new ConcurrentLinkedQueue<TwiMasterImpl.TwiResult>();
-	private final FlowControlledPacketSender outgoing_ = new FlowControlledPacketSender(
-			this);
+	private final FlowControlledPacketSender outgoing_;
 	private final Resource twi_;
 	private final Resource[] pins_;
 
@@ -96,6 +95,8 @@ class TwiMasterImpl extends AbstractResource implements TwiMaster,
 		super(ioio);
 		twi_ = twi;
 		pins_ = pins;
+		outgoing_ = new FlowControlledPacketSender(this, ioio.flushScheduler_,
+				ioio.linkCounters_);
 	}
 
 	@Override
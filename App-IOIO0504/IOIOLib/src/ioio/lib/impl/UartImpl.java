@@ -45,7 +45,7 @@ class UartImpl extends AbstractResource implements DataModuleListener, Sender, U
 	private final Resource uart_;
 	private final Resource rxPin_;
 	private final Resource txPin_;
-	private final FlowControlledOutputStream outgoing_ = new FlowControlledOutputStream(this, MAX_PACKET);
+	private final FlowControlledOutputStream outgoing_;
 	private final QueueInputStream incoming_ = new QueueInputStream();
 
 	public UartImpl(IOIOImpl ioio, Resource txPin, Resource rxPin, Resource uartNum) throws ConnectionLostException {
@@ -53,6 +53,7 @@ class UartImpl extends AbstractResource implements DataModuleListener, Sender, U
 		uart_ = uartNum;
 		rxPin_ = rxPin;
 		txPin_ = txPin;
+		outgoing_ = new FlowControlledOutputStream(this, ioio.flushScheduler_, MAX_PACKET);
 	}
 
 	@Override
@@ -0,0 +1,97 @@
+package com.starla.motor;
+
+import ioio.lib.api.exception.ConnectionLostException;
+
+/**
+ * Commands a servomotor through a deadband and a slew-rate limit, so that it only talks to the IOIO when the shaft
+ * actually has to move.
+ * <p>
+ * The target is first constrained to the range of the servomotor, and it is dropped if it lies within the deadband of
+ * the commanded angle. Otherwise the commanded angle moves towards the target by at most the maximum speed times the
+ * time elapsed since the previous call, dropped or not, so a target that jumps after a quiet spell is still slewed.
+ * It is sent to the servomotor with sub-degree resolution. The servomotor itself drops any write whose pulse width did
+ * not change.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class ServoController {
+    private final Servomotor servomotor;
+    private final double deadband;
+    private final double maxSpeed;
+    private double commanded = Double.NaN;
+    private long lastCall;
+    private long deadbandWrites;
+
+    /**
+     * @param pan      The servomotor to command.
+     * @param deadband The smallest change of angle that is sent, in degrees.
+     * @param maxSpeed The fastest the shaft is moved, in degrees per second.
+     */
+    public ServoController(Pan pan, double deadband, double maxSpeed) {
+        this((Servomotor) pan, deadband, maxSpeed);
+    }
+
+    /**
+     * @param tilt     The servomotor to command.
+     * @param deadband The smallest change of angle that is sent, in degrees.
+     * @param maxSpeed The fastest the shaft is moved, in degrees per second.
+     */
+    public ServoController(Tilt tilt, double deadband, double maxSpeed) {
+        this((Servomotor) tilt, deadband, maxSpeed);
+    }
+
+    private ServoController(Servomotor servomotor, double deadband, double maxSpeed) {
+        if (deadband < 0 || maxSpeed <= 0) {
+            throw new IllegalArgumentException("The deadband must not be negative and the speed must be positive");
+        }
+        this.servomotor = servomotor;
+        this.deadband = deadband;
+        this.maxSpeed = maxSpeed;
+    }
+
+    /**
+     * Moves the shaft towards an angle. The first write goes straight to the angle.
+     *
+     * @param angle The target angle in degrees.
+     * @throws ConnectionLostException
+     */
+    public void write(double angle) throws ConnectionLostException {
+        long now = System.nanoTime();
+        long elapsed = now - lastCall;
+        lastCall = now;
+        angle = servomotor.constraint(angle);
+        if (Double.isNaN(commanded)) {
+            commanded = angle;
+        } else {
+            double delta = angle - commanded;
+            if (Math.abs(delta) < deadband) {
+                deadbandWrites++;
+                return;
+            }
+            double maxStep = maxSpeed * elapsed / 1e9;
+            commanded += Math.max(-maxStep, Math.min(maxStep, delta));
+        }
+        servomotor.setPulseWidth((int) Math.round(servomotor.toPulseWidth(commanded)));
+    }
+
+    /**
+     * @return Returns the angle last sent to the servomotor, in degrees.
+     */
+    public double getCommanded() {
+        return commanded;
+    }
+
+    /**
+     * @return Returns the number of pulse widths sent to the IOIO.
+     */
+    public long getIssuedWrites() {
+        return servomotor.getIssuedWrites();
+    }
+
+    /**
+     * @return Returns the number of writes dropped by the deadband or because the pulse width did not change.
+     */
+    public long getSuppressedWrites() {
+        return deadbandWrites + servomotor.getSuppressedWrites();
+    }
+}
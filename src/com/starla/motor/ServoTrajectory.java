@@ -0,0 +1,124 @@
+package com.starla.motor;
+
+import ioio.lib.api.DigitalOutput;
+import ioio.lib.api.IOIO;
+import ioio.lib.api.Sequencer;
+import ioio.lib.api.exception.ConnectionLostException;
+
+/**
+ * Moves the pan and tilt servomotors along a precomputed trajectory, timed by the IOIO's {@link Sequencer}.
+ * <p>
+ * Each cue holds both pulse widths for one second, with a resolution of half a microsecond instead of a whole degree.
+ * The board executes the queued cues by itself, so the motion no longer depends on the host loop keeping time, and the
+ * host only has to {@link #refill()} the queue before it runs dry. The queue holds as many seconds as the firmware
+ * has cue slots; if it does run dry the servomotors hold their position, and the trajectory resumes from the present.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class ServoTrajectory {
+    private static final int PERIOD = 20_000; // 10 ms (100 Hz) in 0.5 us units
+    private static final int CUE_DURATION = 62_500; // 1 s in 16 us units
+    private static final long CUE_MILLIS = 1000;
+
+    private final Sequencer sequencer;
+    private final Target target;
+    private final Sequencer.ChannelCuePwmPosition panCue = new Sequencer.ChannelCuePwmPosition();
+    private final Sequencer.ChannelCuePwmPosition tiltCue = new Sequencer.ChannelCuePwmPosition();
+    private final Sequencer.ChannelCue[] cues = {panCue, tiltCue};
+    private final double[] angles = new double[2];
+    private long nextCue;
+    private long pushed;
+    private boolean started;
+
+    /**
+     * Opens a sequencer with one PWM position channel per servomotor, both at their initial angle.
+     *
+     * @param ioio    The IOIO board.
+     * @param panPin  The pin of the {@link Pan} servomotor.
+     * @param tiltPin The pin of the {@link Tilt} servomotor.
+     * @param target  The trajectory to follow.
+     * @throws ConnectionLostException
+     */
+    public ServoTrajectory(IOIO ioio, int panPin, int tiltPin, Target target) throws ConnectionLostException {
+        this.target = target;
+        this.sequencer = ioio.openSequencer(new Sequencer.ChannelConfig[]{
+                new Sequencer.ChannelConfigPwmPosition(Sequencer.Clock.CLK_2M, PERIOD, toTicks(Pan.pulseWidth(0)),
+                        new DigitalOutput.Spec(panPin, DigitalOutput.Spec.Mode.OPEN_DRAIN)),
+                new Sequencer.ChannelConfigPwmPosition(Sequencer.Clock.CLK_2M, PERIOD, toTicks(Tilt.pulseWidth(0)),
+                        new DigitalOutput.Spec(tiltPin, DigitalOutput.Spec.Mode.OPEN_DRAIN))});
+    }
+
+    /**
+     * Queues the cues that fit, continuing the trajectory where the queue ends. The first call fills the queue from
+     * the present and starts the execution, later calls do not block.
+     *
+     * @return Returns the number of cues pushed.
+     * @throws ConnectionLostException
+     * @throws InterruptedException
+     */
+    public int refill() throws ConnectionLostException, InterruptedException {
+        if (!started) {
+            sequencer.waitEventType(Sequencer.Event.Type.STOPPED); // the queue is at full capacity once opened
+        }
+        long now = System.currentTimeMillis();
+        if (nextCue < now) { // the queue ran dry, do not replay the past
+            nextCue = now;
+        }
+
+        int count = 0;
+        while (sequencer.available() > 0) {
+            target.locate(nextCue + CUE_MILLIS / 2, angles);
+            panCue.pulseWidth = toTicks(Pan.pulseWidth(angles[0]));
+            tiltCue.pulseWidth = toTicks(Tilt.pulseWidth(angles[1]));
+            sequencer.push(cues, CUE_DURATION);
+            nextCue += CUE_MILLIS;
+            count++;
+        }
+        pushed += count;
+        if (!started) {
+            sequencer.start();
+            started = true;
+        }
+        return count;
+    }
+
+    /**
+     * @return Returns the time, in milliseconds since the epoch, up to which the trajectory is queued.
+     */
+    public long getQueuedUntil() {
+        return nextCue;
+    }
+
+    /**
+     * @return Returns the number of cues pushed since the trajectory was opened.
+     */
+    public long getPushedCount() {
+        return pushed;
+    }
+
+    /**
+     * Stops the motion and releases the pins.
+     */
+    public void close() {
+        sequencer.close();
+    }
+
+    /**
+     * @param microseconds
+     * @return Returns the pulse width in 0.5 us units.
+     */
+    private static int toTicks(double microseconds) {
+        return (int) Math.round(microseconds * 2);
+    }
+
+    /**
+     * The trajectory to follow.
+     */
+    public interface Target {
+        /**
+         * @param epochMillis Milliseconds since 1970-01-01T00:00Z.
+         * @param angles      Receives the {@link Pan} angle and the {@link Tilt} angle, in degrees.
+         */
+        void locate(long epochMillis, double[] angles);
+    }
+}
@@ -12,6 +12,9 @@ import ioio.lib.api.exception.ConnectionLostException;
 class Servomotor {
 
     final PwmOutput pwmOutput;
+    private int pulseWidth = -1;
+    private long issuedWrites;
+    private long suppressedWrites;
 
     /**
      * @param pwmOutput Contains the information about the frequency, operating mode and the number of the pin.
@@ -33,8 +36,57 @@ class Servomotor {
         int maxPulseWidth = 2400;
         int minAngle = 0;
         int maxAngle = 180;
-        pwmOutput.setPulseWidth(map(constraint(angle, minAngle, maxAngle), minAngle, maxAngle, minPulseWidth,
-                maxPulseWidth));
+        setPulseWidth(map(constraint(angle, minAngle, maxAngle), minAngle, maxAngle, minPulseWidth, maxPulseWidth));
+    }
+
+    /**
+     * Constrains an angle to be within the range of the servo.
+     *
+     * @param angle The angle in degrees.
+     * @return The angle, between 0 and 180.
+     */
+    double constraint(double angle) {
+        return Math.min(Math.max(angle, 0), 180);
+    }
+
+    /**
+     * Maps an angle to a pulse width without rounding it to whole degrees.
+     *
+     * @param angle The angle in degrees, between 0 and 180.
+     * @return The pulse width in microseconds.
+     */
+    double toPulseWidth(double angle) {
+        return 544 + constraint(angle) * (2400 - 544) / 180.0;
+    }
+
+    /**
+     * Sends the pulse width to the IOIO only if it differs from the last one sent.
+     *
+     * @param pulseWidth The pulse width in microseconds.
+     * @throws ConnectionLostException
+     */
+    void setPulseWidth(int pulseWidth) throws ConnectionLostException {
+        if (pulseWidth == this.pulseWidth) {
+            suppressedWrites++;
+            return;
+        }
+        pwmOutput.setPulseWidth(pulseWidth);
+        this.pulseWidth = pulseWidth;
+        issuedWrites++;
+    }
+
+    /**
+     * @return Returns the number of pulse widths sent to the IOIO.
+     */
+    public long getIssuedWrites() {
+        return issuedWrites;
+    }
+
+    /**
+     * @return Returns the number of writes that were not sent because the pulse width did not change.
+     */
+    public long getSuppressedWrites() {
+        return suppressedWrites;
     }
 
     /**
@@ -17,8 +17,8 @@ public final class Tilt extends Servomotor {
 
     private static final int MIN_PULSE_WIDTH = 970; // 0°
     private static final int MAX_PULSE_WIDTH = 1850; // 90°
-    private static final int MIN_ANGLE = 0;
-    private static final int MAX_ANGLE = 90;
+    public static final int MIN_ANGLE = 0;
+    public static final int MAX_ANGLE = 90;
 
     /**
      * @param pwmOutput Contains the information about the frequency, operating mode and the number of the pin.
@@ -34,8 +34,30 @@ public final class Tilt extends Servomotor {
      */
     public void write(int angle) throws ConnectionLostException {
         assert angle >= 0 && angle <= 90 : "Tilt angle is out of range";
-        pwmOutput.setPulseWidth(map(constraint(angle, MIN_ANGLE, MAX_ANGLE), MIN_ANGLE, MAX_ANGLE, MIN_PULSE_WIDTH,
+        setPulseWidth(map(constraint(angle, MIN_ANGLE, MAX_ANGLE), MIN_ANGLE, MAX_ANGLE, MIN_PULSE_WIDTH,
                 MAX_PULSE_WIDTH));
     }
 
+    @Override
+    double constraint(double angle) {
+        return Math.min(Math.max(angle, MIN_ANGLE), MAX_ANGLE);
+    }
+
+    @Override
+    double toPulseWidth(double angle) {
+        return pulseWidth(angle);
+    }
+
+    /**
+     * Maps an angle to a pulse width without rounding it to whole degrees, for hardware-timed trajectories.
+     *
+     * @param angle The angle in degrees, between 0° and 90°.
+     * @return The pulse width in microseconds.
+     */
+    static double pulseWidth(double angle) {
+        double constrained = Math.min(Math.max(angle, MIN_ANGLE), MAX_ANGLE);
+        return MIN_PULSE_WIDTH + (constrained - MIN_ANGLE) * (MAX_PULSE_WIDTH - MIN_PULSE_WIDTH) /
+                (double) (MAX_ANGLE - MIN_ANGLE);
+    }
+
 }
\ No newline at end of file
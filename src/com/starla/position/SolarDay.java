@@ -0,0 +1,164 @@
+package com.starla.position;
+
+/**
+ * The apparent right ascension and declination of the sun at the previous, the current and the next UT midnight, and
+ * the apparent sidereal time at the current one, following the low-accuracy solar theory of Meeus (Astronomical
+ * Algorithms, ch. 22 and 25). They are interpolated with a second-order (Bessel) formula within the day.
+ *
+ * @version 1, 17/10/2026
+ */
+final class SolarDay {
+    static final long DAY = 86_400_000L; // ms
+    private static final double UNIX_EPOCH_JD = 2440587.5;
+    private static final double J2000_JD = 2451545.0;
+
+    private final double deltaT;
+
+    private long day = Long.MIN_VALUE;
+    private final double[] rightAscension = new double[3]; // deg, midnights d - 1, d, d + 1
+    private final double[] declination = new double[3]; // deg
+    private double siderealTime; // deg, at midnight d
+    private double equatorialParallax; // deg
+
+    /**
+     * @param deltaT Difference between Terrestrial Time and Universal Time, in seconds.
+     */
+    SolarDay(double deltaT) {
+        this.deltaT = deltaT;
+    }
+
+    /**
+     * Recomputes the daily terms when the UT day changes.
+     *
+     * @param epochMillis Milliseconds since 1970-01-01T00:00Z.
+     * @return Returns the fraction of the day, from 0 to 1.
+     */
+    double update(long epochMillis) {
+        long today = Math.floorDiv(epochMillis, DAY);
+        if (today != day) {
+            computeDay(today);
+        }
+        return (epochMillis - today * DAY) / (double) DAY;
+    }
+
+    /**
+     * @param n The fraction of the day.
+     * @return Returns the apparent geocentric right ascension in degrees.
+     */
+    double rightAscension(double n) {
+        return interpolate(rightAscension, n);
+    }
+
+    /**
+     * @param n The fraction of the day.
+     * @return Returns the apparent geocentric declination in degrees.
+     */
+    double declination(double n) {
+        return interpolate(declination, n);
+    }
+
+    /**
+     * @param n The fraction of the day.
+     * @return Returns the apparent sidereal time at Greenwich in degrees.
+     */
+    double siderealTime(double n) {
+        return siderealTime + 360.985647 * n;
+    }
+
+    /**
+     * @return Returns the equatorial horizontal parallax of the sun in degrees.
+     */
+    double getEquatorialParallax() {
+        return equatorialParallax;
+    }
+
+    /**
+     * @param day UT days since 1970-01-01.
+     */
+    private void computeDay(long day) {
+        double jd = day + UNIX_EPOCH_JD;
+        for (int i = 0; i < 3; i++) {
+            computeEquatorial(jd + i - 1, i);
+        }
+
+        double t = (jd - J2000_JD) / 36525.0;
+        double omega = Math.toRadians(125.04452 - 1934.136261 * t);
+        double l = Math.toRadians(280.4665 + 36000.7698 * t);
+        double lMoon = Math.toRadians(218.3165 + 481267.8813 * t);
+        double deltaPsi = (-17.20 * Math.sin(omega) - 1.32 * Math.sin(2 * l) - 0.23 * Math.sin(2 * lMoon) +
+                0.21 * Math.sin(2 * omega)) / 3600.0;
+        double epsilon = Math.toRadians(meanObliquity(t) + 0.00256 * Math.cos(omega));
+        double theta0 = 280.46061837 + 360.98564736629 * (jd - J2000_JD) + 0.000387933 * t * t -
+                t * t * t / 38710000.0;
+        siderealTime = limitDegrees(theta0 + deltaPsi * Math.cos(epsilon));
+
+        this.day = day;
+    }
+
+    /**
+     * Computes the apparent geocentric right ascension and declination of the sun.
+     *
+     * @param jd    Julian day, UT.
+     * @param index The slot of the day in the interpolation table.
+     */
+    private void computeEquatorial(double jd, int index) {
+        double t = (jd + deltaT / 86400.0 - J2000_JD) / 36525.0; // Julian centuries, TT
+        double l0 = 280.46646 + 36000.76983 * t + 0.0003032 * t * t;
+        double m = Math.toRadians(357.52911 + 35999.05029 * t - 0.0001537 * t * t);
+        double e = 0.016708634 - 0.000042037 * t - 0.0000001267 * t * t;
+        double c = (1.914602 - 0.004817 * t - 0.000014 * t * t) * Math.sin(m) +
+                (0.019993 - 0.000101 * t) * Math.sin(2 * m) + 0.000289 * Math.sin(3 * m);
+        double omega = Math.toRadians(125.04 - 1934.136 * t);
+        double lambda = Math.toRadians(l0 + c - 0.00569 - 0.00478 * Math.sin(omega));
+        double epsilon = Math.toRadians(meanObliquity(t) + 0.00256 * Math.cos(omega));
+
+        rightAscension[index] = limitDegrees(Math.toDegrees(Math.atan2(Math.cos(epsilon) * Math.sin(lambda),
+                Math.cos(lambda))));
+        declination[index] = Math.toDegrees(Math.asin(Math.sin(epsilon) * Math.sin(lambda)));
+
+        if (index == 1) {
+            double r = 1.000001018 * (1 - e * e) / (1 + e * Math.cos(m + Math.toRadians(c))); // AU
+            equatorialParallax = 8.794 / (3600.0 * r);
+        }
+    }
+
+    /**
+     * @param t Julian centuries from J2000.0.
+     * @return Returns the mean obliquity of the ecliptic in degrees.
+     */
+    private static double meanObliquity(double t) {
+        return 23.0 + (26.0 + (21.448 - t * (46.8150 + t * (0.00059 - t * 0.001813))) / 60.0) / 60.0;
+    }
+
+    /**
+     * Second-order interpolation between three equally spaced values.
+     *
+     * @param values The values at n = -1, 0 and 1, in degrees.
+     * @param n      The fraction of the day, from 0 to 1.
+     * @return Returns the interpolated value in degrees.
+     */
+    private static double interpolate(double[] values, double n) {
+        double a = limitDifference(values[1] - values[0]);
+        double b = limitDifference(values[2] - values[1]);
+
+        return values[1] + n * (a + b + (b - a) * n) / 2.0;
+    }
+
+    /**
+     * @param degrees
+     * @return Returns the difference between two angles in (-180, 180].
+     */
+    static double limitDifference(double degrees) {
+        double limited = limitDegrees(degrees);
+        return limited > 180.0 ? limited - 360.0 : limited;
+    }
+
+    /**
+     * @param degrees
+     * @return Returns the angle in [0, 360).
+     */
+    static double limitDegrees(double degrees) {
+        double limited = degrees % 360.0;
+        return limited < 0 ? limited + 360.0 : limited;
+    }
+}
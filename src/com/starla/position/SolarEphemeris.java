@@ -0,0 +1,110 @@
+package com.starla.position;
+
+/**
+ * An incremental sun position engine for a fixed site.
+ * <p>
+ * The apparent right ascension, declination and sidereal time only drift about a degree a day, so they are computed
+ * once per UT day, for the previous, the current and the next midnight, and are interpolated with a second-order
+ * (Bessel) formula for every call. Only the fast terms, the hour angle, the topocentric parallax and the atmospheric
+ * refraction, are evaluated per call, without allocating anything.
+ * <p>
+ * The daily terms follow the low-accuracy solar theory of Meeus (Astronomical Algorithms, ch. 22 and 25), and the
+ * per-call terms follow the NREL Solar Position Algorithm. The result stays within about 0.01&deg; of the full
+ * {@link SunPosition} series, well under the servomotors' one-degree resolution.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class SolarEphemeris {
+    private static final double EARTH_RADIUS = 6378140.0; // m
+    private static final double SUN_RADIUS = 0.26667; // deg
+    private static final double ATMOSPHERIC_REFRACTION = 0.5667; // deg
+
+    private final double longitude;
+    private final double sinLatitude;
+    private final double cosLatitude;
+    private final double x;
+    private final double y;
+    private final SolarDay solarDay;
+
+    private double zenith;
+    private double azimuth;
+
+    /**
+     * Class constructor.
+     *
+     * @param longitude Observer longitude in radians, positive east of Greenwich.
+     * @param latitude  Observer latitude in radians, positive north of the equator.
+     * @param elevation Observer elevation in meters.
+     * @param deltaT    Difference between Terrestrial Time and Universal Time, in seconds.
+     */
+    public SolarEphemeris(double longitude, double latitude, double elevation, double deltaT) {
+        double u = Math.atan(0.99664719 * Math.tan(latitude));
+
+        this.longitude = Math.toDegrees(longitude);
+        this.sinLatitude = Math.sin(latitude);
+        this.cosLatitude = Math.cos(latitude);
+        this.x = Math.cos(u) + elevation / EARTH_RADIUS * cosLatitude;
+        this.y = 0.99664719 * Math.sin(u) + elevation / EARTH_RADIUS * sinLatitude;
+        this.solarDay = new SolarDay(deltaT);
+    }
+
+    /**
+     * Computes the topocentric position of the sun. The daily terms are recomputed only when the UT day changes.
+     *
+     * @param epochMillis Milliseconds since 1970-01-01T00:00Z.
+     * @param temperature Annual average local temperature in Celsius degrees.
+     * @param pressure    Annual average local pressure in mb.
+     */
+    public void compute(long epochMillis, double temperature, double pressure) {
+        double n = solarDay.update(epochMillis);
+
+        double alpha = solarDay.rightAscension(n);
+        double delta = Math.toRadians(solarDay.declination(n));
+        double nu = solarDay.siderealTime(n);
+        double h = Math.toRadians(SolarDay.limitDegrees(nu + longitude - alpha)); // observer local hour angle
+
+        // topocentric parallax
+        double sinXi = Math.sin(Math.toRadians(solarDay.getEquatorialParallax()));
+        double cosDelta = Math.cos(delta);
+        double cosH = Math.cos(h);
+        double deltaAlpha = Math.atan2(-x * sinXi * Math.sin(h), cosDelta - x * sinXi * cosH);
+        double deltaPrime = Math.atan2((Math.sin(delta) - y * sinXi) * Math.cos(deltaAlpha),
+                cosDelta - x * sinXi * cosH);
+        double hPrime = h - deltaAlpha;
+
+        double e0 = Math.toDegrees(Math.asin(sinLatitude * Math.sin(deltaPrime) +
+                cosLatitude * Math.cos(deltaPrime) * Math.cos(hPrime)));
+        zenith = Math.toRadians(90.0 - e0 - refraction(e0, temperature, pressure));
+
+        azimuth = Math.atan2(Math.sin(hPrime), Math.cos(hPrime) * sinLatitude - Math.tan(deltaPrime) * cosLatitude);
+    }
+
+    /**
+     * @param e0          Topocentric elevation angle in degrees, without refraction.
+     * @param temperature Local temperature in Celsius degrees.
+     * @param pressure    Local pressure in mb.
+     * @return Returns the atmospheric refraction correction in degrees, 0 once the sun is below the horizon.
+     */
+    static double refraction(double e0, double temperature, double pressure) {
+        if (e0 < -(SUN_RADIUS + ATMOSPHERIC_REFRACTION)) {
+            return 0;
+        }
+        return (pressure / 1010.0) * (283.0 / (273.0 + temperature)) * 1.02 /
+                (60.0 * Math.tan(Math.toRadians(e0 + 10.3 / (e0 + 5.11))));
+    }
+
+    /**
+     * @return Returns the topocentric zenith angle in radians, corrected for refraction.
+     */
+    public double getZenith() {
+        return zenith;
+    }
+
+    /**
+     * @return Returns the topocentric azimuth angle &Gamma; in radians, westward from the south, in (-pi, pi], like
+     * {@link SunPosition#getAzimuth()}.
+     */
+    public double getAzimuth() {
+        return azimuth;
+    }
+}
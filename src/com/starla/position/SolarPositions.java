@@ -0,0 +1,101 @@
+package com.starla.position;
+
+/**
+ * Computes the position of the sun for many timestamps or many sites at once, on primitive arrays.
+ * <p>
+ * The daily terms are shared across the whole batch, like in {@link SolarEphemeris}, and the per-sample work is split
+ * into two straight loops over the arrays: the first one interpolates the hour angle and the declination, the second
+ * one turns them into horizontal coordinates. The second loop has no calls other than {@link Math} intrinsics, so the
+ * JIT compiles it tightly.
+ * <p>
+ * The positions are geocentric, the topocentric parallax of the sun is below 0.0025&deg;, and they are corrected for
+ * the refraction of a standard atmosphere (1010 mb, 10&deg;C).
+ *
+ * @version 1, 17/10/2026
+ */
+public final class SolarPositions {
+    private static final double DELTA_T = 69.0; // TT - UT, in seconds
+    private static final double TEMPERATURE = 10.0; // Celsius degrees
+    private static final double PRESSURE = 1010.0; // mb
+
+    private SolarPositions() {
+    }
+
+    /**
+     * Computes the position of the sun over one site at many instants. The instants do not need to be sorted, but
+     * the daily terms are only reused between consecutive instants of the same UT day.
+     *
+     * @param epochMillis Milliseconds since 1970-01-01T00:00Z.
+     * @param latitude    Observer latitude in radians, positive north of the equator.
+     * @param longitude   Observer longitude in radians, positive east of Greenwich.
+     * @param zenithOut   Receives the zenith angles in radians.
+     * @param azimuthOut  Receives the azimuth angles &Gamma; in radians, westward from the south.
+     */
+    public static void computePositions(long[] epochMillis, double latitude, double longitude, double[] zenithOut,
+                                        double[] azimuthOut) {
+        int size = epochMillis.length;
+        checkOutputs(size, zenithOut, azimuthOut);
+        SolarDay solarDay = new SolarDay(DELTA_T);
+        double degrees = Math.toDegrees(longitude);
+
+        // the outputs hold the hour angle and the declination until they are converted
+        for (int i = 0; i < size; i++) {
+            double n = solarDay.update(epochMillis[i]);
+            zenithOut[i] = Math.toRadians(solarDay.siderealTime(n) + degrees - solarDay.rightAscension(n));
+            azimuthOut[i] = Math.toRadians(solarDay.declination(n));
+        }
+
+        double sinLatitude = Math.sin(latitude);
+        double cosLatitude = Math.cos(latitude);
+        for (int i = 0; i < size; i++) {
+            double h = zenithOut[i];
+            double delta = azimuthOut[i];
+            double cosH = Math.cos(h);
+            double e0 = Math.toDegrees(Math.asin(sinLatitude * Math.sin(delta) +
+                    cosLatitude * Math.cos(delta) * cosH));
+            zenithOut[i] = Math.toRadians(90.0 - e0 - SolarEphemeris.refraction(e0, TEMPERATURE, PRESSURE));
+            azimuthOut[i] = Math.atan2(Math.sin(h), cosH * sinLatitude - Math.tan(delta) * cosLatitude);
+        }
+    }
+
+    /**
+     * Computes the position of the sun over many sites at one instant.
+     *
+     * @param epochMillis Milliseconds since 1970-01-01T00:00Z.
+     * @param latitudes   Observer latitudes in radians, positive north of the equator.
+     * @param longitudes  Observer longitudes in radians, positive east of Greenwich.
+     * @param zenithOut   Receives the zenith angles in radians.
+     * @param azimuthOut  Receives the azimuth angles &Gamma; in radians, westward from the south.
+     */
+    public static void computePositions(long epochMillis, double[] latitudes, double[] longitudes,
+                                        double[] zenithOut, double[] azimuthOut) {
+        int size = latitudes.length;
+        if (longitudes.length != size) {
+            throw new IllegalArgumentException("latitudes and longitudes differ in length");
+        }
+        checkOutputs(size, zenithOut, azimuthOut);
+        SolarDay solarDay = new SolarDay(DELTA_T);
+        double n = solarDay.update(epochMillis);
+        double greenwichHourAngle = Math.toRadians(solarDay.siderealTime(n) - solarDay.rightAscension(n));
+        double delta = Math.toRadians(solarDay.declination(n));
+        double sinDelta = Math.sin(delta);
+        double cosDelta = Math.cos(delta);
+        double tanDelta = Math.tan(delta);
+
+        for (int i = 0; i < size; i++) {
+            double h = greenwichHourAngle + longitudes[i];
+            double sinLatitude = Math.sin(latitudes[i]);
+            double cosLatitude = Math.cos(latitudes[i]);
+            double cosH = Math.cos(h);
+            double e0 = Math.toDegrees(Math.asin(sinLatitude * sinDelta + cosLatitude * cosDelta * cosH));
+            zenithOut[i] = Math.toRadians(90.0 - e0 - SolarEphemeris.refraction(e0, TEMPERATURE, PRESSURE));
+            azimuthOut[i] = Math.atan2(Math.sin(h), cosH * sinLatitude - tanDelta * cosLatitude);
+        }
+    }
+
+    private static void checkOutputs(int size, double[] zenithOut, double[] azimuthOut) {
+        if (zenithOut.length < size || azimuthOut.length < size) {
+            throw new IllegalArgumentException("The outputs are shorter than the input");
+        }
+    }
+}
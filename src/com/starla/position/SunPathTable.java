@@ -0,0 +1,328 @@
+package com.starla.position;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * The path of the sun over a site during one UT day, as piecewise Chebyshev polynomials.
+ * <p>
+ * The day is split into equally long segments, and the zenith and azimuth of each segment are fitted from the full
+ * {@link SunPosition#computePosition()} at the Chebyshev nodes. The fit is checked against the full computation at the
+ * ends of every segment and halfway between its nodes, and the segments are halved until the pointing error is within
+ * the tolerance, so a lookup is an index computation plus the evaluation of two short polynomials.
+ * <p>
+ * The azimuth error is weighted by the sine of the zenith angle, because an azimuth error near the zenith barely moves
+ * the pointing direction. The error is only bounded while the sun is above the horizon: the refraction correction
+ * switches off just below it, and that step cannot be fitted by a polynomial.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class SunPathTable {
+    private static final long DAY = 86_400_000L; // ms
+    private static final int MAGIC = 0x53504154; // "SPAT"
+    private static final int VERSION = 1;
+    private static final int DEGREE = 7;
+    private static final int MIN_SEGMENTS = 96;
+    private static final int MAX_SEGMENTS = 1536;
+    private static final double TWO_PI = 2 * Math.PI;
+    private static final double HORIZON = Math.PI / 2;
+
+    private final long day;
+    private final double longitude;
+    private final double latitude;
+    private final int segments;
+    private final long segmentLength;
+    private final double[] zenithCoefficients;
+    private final double[] azimuthCoefficients;
+    private final double azimuthLow; // the azimuth is returned in [azimuthLow, azimuthLow + 2 pi)
+    private double maxError;
+
+    private double zenith;
+    private double azimuth;
+
+    private SunPathTable(long day, double longitude, double latitude, int segments, double[] zenithCoefficients,
+                         double[] azimuthCoefficients, double azimuthLow, double maxError) {
+        this.day = day;
+        this.longitude = longitude;
+        this.latitude = latitude;
+        this.segments = segments;
+        this.segmentLength = DAY / segments;
+        this.zenithCoefficients = zenithCoefficients;
+        this.azimuthCoefficients = azimuthCoefficients;
+        this.azimuthLow = azimuthLow;
+        this.maxError = maxError;
+    }
+
+    /**
+     * Fits the sun path of a day from the full sun position computation.
+     *
+     * @param day         UT days since 1970-01-01.
+     * @param longitude   Observer longitude in radians, as for {@link Location}.
+     * @param latitude    Observer latitude in radians, as for {@link Location}.
+     * @param temperature Local temperature in Celsius degrees.
+     * @param pressure    Local pressure, as for {@link Weather}.
+     * @param tolerance   The maximum pointing error in radians.
+     * @return Returns the fitted table, with the smallest number of segments that meets the tolerance.
+     */
+    public static SunPathTable generate(long day, double longitude, double latitude, double temperature,
+                                        double pressure, double tolerance) {
+        Location location = new Location(longitude, latitude);
+        Weather weather = new Weather(temperature, pressure);
+        double[] sample = new double[2];
+        double[] zenithNodes = new double[DEGREE + 1];
+        double[] azimuthNodes = new double[DEGREE + 1];
+        double azimuthLow = 0;
+        SunPathTable table = null;
+
+        for (int segments = MIN_SEGMENTS; segments <= MAX_SEGMENTS; segments *= 2) {
+            long segmentLength = DAY / segments;
+            double[] zenithCoefficients = new double[segments * (DEGREE + 1)];
+            double[] azimuthCoefficients = new double[segments * (DEGREE + 1)];
+
+            for (int segment = 0; segment < segments; segment++) {
+                long start = day * DAY + segment * segmentLength;
+                for (int k = 0; k <= DEGREE; k++) {
+                    double u = Math.cos(Math.PI * (k + 0.5) / (DEGREE + 1));
+                    position(location, weather, start + Math.round((u + 1) / 2 * segmentLength), sample);
+                    zenithNodes[k] = sample[0];
+                    if (sample[1] < 0) { // keep the range of the full computation
+                        azimuthLow = -Math.PI;
+                    }
+                    azimuthNodes[k] = k == 0 ? sample[1] : unwrap(sample[1], azimuthNodes[k - 1]);
+                }
+                fit(zenithNodes, zenithCoefficients, segment * (DEGREE + 1));
+                fit(azimuthNodes, azimuthCoefficients, segment * (DEGREE + 1));
+            }
+
+            table = new SunPathTable(day, longitude, latitude, segments, zenithCoefficients, azimuthCoefficients,
+                    azimuthLow, 0);
+            table.maxError = table.measureError(location, weather, sample);
+            if (table.maxError <= tolerance) {
+                break;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Reads a table written by {@link #save(Path)}.
+     *
+     * @param file
+     * @return Returns the table, or null if the file does not exist.
+     * @throws IOException If the file cannot be read or is not a sun path table.
+     */
+    public static SunPathTable load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != DEGREE) {
+                throw new IOException(file + " is not a sun path table");
+            }
+            long day = in.readLong();
+            double longitude = in.readDouble();
+            double latitude = in.readDouble();
+            double azimuthLow = in.readDouble();
+            double maxError = in.readDouble();
+            int segments = in.readInt();
+            if (segments <= 0 || segments > MAX_SEGMENTS) {
+                throw new IOException(file + " is not a sun path table");
+            }
+            double[] zenithCoefficients = new double[segments * (DEGREE + 1)];
+            double[] azimuthCoefficients = new double[segments * (DEGREE + 1)];
+            for (int i = 0; i < zenithCoefficients.length; i++) {
+                zenithCoefficients[i] = in.readDouble();
+            }
+            for (int i = 0; i < azimuthCoefficients.length; i++) {
+                azimuthCoefficients[i] = in.readDouble();
+            }
+            return new SunPathTable(day, longitude, latitude, segments, zenithCoefficients, azimuthCoefficients,
+                    azimuthLow, maxError);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the table, replacing the file atomically where the file system allows it.
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void save(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(DEGREE);
+            out.writeLong(day);
+            out.writeDouble(longitude);
+            out.writeDouble(latitude);
+            out.writeDouble(azimuthLow);
+            out.writeDouble(maxError);
+            out.writeInt(segments);
+            for (double coefficient : zenithCoefficients) {
+                out.writeDouble(coefficient);
+            }
+            for (double coefficient : azimuthCoefficients) {
+                out.writeDouble(coefficient);
+            }
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @param epochMillis Milliseconds since 1970-01-01T00:00Z.
+     * @return Returns UT days since 1970-01-01.
+     */
+    public static long dayOf(long epochMillis) {
+        return Math.floorDiv(epochMillis, DAY);
+    }
+
+    /**
+     * @param epochMillis Milliseconds since 1970-01-01T00:00Z.
+     * @param longitude   Observer longitude in radians.
+     * @param latitude    Observer latitude in radians.
+     * @return Returns true if the table covers that instant at that site.
+     */
+    public boolean covers(long epochMillis, double longitude, double latitude) {
+        return dayOf(epochMillis) == day && this.longitude == longitude && this.latitude == latitude;
+    }
+
+    /**
+     * Looks up the position of the sun, without allocating anything.
+     *
+     * @param epochMillis Milliseconds since 1970-01-01T00:00Z, from the start to the end of the day of the table.
+     */
+    public void lookup(long epochMillis) {
+        long offset = epochMillis - day * DAY;
+        if (offset < 0 || offset > DAY) {
+            throw new IllegalArgumentException("The table does not cover " + Instant.ofEpochMilli(epochMillis));
+        }
+        int segment = (int) Math.min(offset / segmentLength, segments - 1);
+        double u = 2.0 * (offset - segment * segmentLength) / segmentLength - 1;
+
+        zenith = evaluate(zenithCoefficients, segment * (DEGREE + 1), u);
+        azimuth = (evaluate(azimuthCoefficients, segment * (DEGREE + 1), u) - azimuthLow) % TWO_PI;
+        if (azimuth < 0) {
+            azimuth += TWO_PI;
+        }
+        azimuth += azimuthLow;
+    }
+
+    /**
+     * @return Returns the zenith angle of the last lookup, in radians.
+     */
+    public double getZenith() {
+        return zenith;
+    }
+
+    /**
+     * @return Returns the azimuth angle of the last lookup, in radians.
+     */
+    public double getAzimuth() {
+        return azimuth;
+    }
+
+    /**
+     * @return Returns UT days since 1970-01-01.
+     */
+    public long getDay() {
+        return day;
+    }
+
+    /**
+     * @return Returns the number of segments the day was split into.
+     */
+    public int getSegments() {
+        return segments;
+    }
+
+    /**
+     * @return Returns the largest pointing error measured above the horizon while fitting, in radians.
+     */
+    public double getMaxError() {
+        return maxError;
+    }
+
+    private double measureError(Location location, Weather weather, double[] sample) {
+        double error = 0;
+        for (int segment = 0; segment < segments; segment++) {
+            for (int check = 0; check <= DEGREE + 1; check++) { // the ends, and halfway between the nodes
+                double u = check == 0 ? 1 : check == DEGREE + 1 ? -1 : Math.cos(Math.PI * check / (DEGREE + 1));
+                long time = day * DAY + segment * segmentLength + Math.round((u + 1) / 2 * segmentLength);
+                position(location, weather, time, sample);
+                if (sample[0] > HORIZON) {
+                    continue;
+                }
+                lookup(time);
+                double deltaZenith = zenith - sample[0];
+                double deltaAzimuth = Math.abs(azimuth - sample[1]) % TWO_PI;
+                deltaAzimuth = Math.min(deltaAzimuth, TWO_PI - deltaAzimuth) * Math.sin(sample[0]);
+                error = Math.max(error, Math.hypot(deltaZenith, deltaAzimuth));
+            }
+        }
+        return error;
+    }
+
+    private static void position(Location location, Weather weather, long epochMillis, double[] sample) {
+        Time time = new Time(ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC));
+        time.computeTime();
+        SunPosition sunPosition = new SunPosition(new ObservationPoint(time, location, weather));
+        sunPosition.computePosition();
+
+        sample[0] = sunPosition.getZenith();
+        sample[1] = sunPosition.getAzimuth();
+    }
+
+    /**
+     * @param angle    An angle in radians.
+     * @param previous The previous angle of the series.
+     * @return Returns the angle plus the turns that keep it within half a turn of the previous one.
+     */
+    private static double unwrap(double angle, double previous) {
+        return angle + TWO_PI * Math.rint((previous - angle) / TWO_PI);
+    }
+
+    /**
+     * Computes the Chebyshev coefficients of the values at the Chebyshev nodes.
+     */
+    private static void fit(double[] nodes, double[] coefficients, int offset) {
+        int n = nodes.length;
+        for (int j = 0; j < n; j++) {
+            double sum = 0;
+            for (int k = 0; k < n; k++) {
+                sum += nodes[k] * Math.cos(Math.PI * j * (k + 0.5) / n);
+            }
+            coefficients[offset + j] = 2.0 * sum / n;
+        }
+        coefficients[offset] /= 2;
+    }
+
+    /**
+     * Evaluates a Chebyshev series with the Clenshaw recurrence.
+     */
+    private static double evaluate(double[] coefficients, int offset, double u) {
+        double b1 = 0;
+        double b2 = 0;
+        for (int j = DEGREE; j > 0; j--) {
+            double b0 = 2 * u * b1 - b2 + coefficients[offset + j];
+            b2 = b1;
+            b1 = b0;
+        }
+        return u * b1 - b2 + coefficients[offset];
+    }
+}
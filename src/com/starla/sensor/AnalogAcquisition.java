@@ -0,0 +1,117 @@
+package com.starla.sensor;
+
+import ioio.lib.api.AnalogInput;
+import ioio.lib.api.exception.ConnectionLostException;
+
+/**
+ * Acquires several analog inputs in lockstep, from the same sampling frames of the IOIO.
+ * <p>
+ * The IOIO samples every open analog pin in each frame, so the buffers of the inputs fill up together, and there is
+ * no need to drain them one after another. Each {@link #acquire()} takes the most recent window of frames buffered by
+ * all the inputs, and never a frame of the previous window, so that it only blocks when the previous window was
+ * acquired less than a window ago. The inputs have to be buffered, with room for at least one window.
+ *
+ * @version 1, 17/10/2026
+ * @see AnalogInput#readBuffered(long, short[], int, int)
+ */
+public final class AnalogAcquisition {
+    private final AnalogInput[] inputs;
+    private final short[][] counts;
+    private final int frames;
+    private long nextFrame = -1;
+    private long firstFrame = -1;
+    private long retries;
+
+    /**
+     * Class constructor.
+     *
+     * @param frames The amount of samples acquired per input, one per frame.
+     * @param inputs The buffered analog inputs.
+     */
+    public AnalogAcquisition(int frames, AnalogInput... inputs) {
+        if (frames <= 0 || inputs.length == 0) {
+            throw new IllegalArgumentException("At least one frame of one input is needed");
+        }
+        this.inputs = inputs.clone();
+        this.counts = new short[inputs.length][frames];
+        this.frames = frames;
+    }
+
+    /**
+     * Reads the same window of frames from every input, right after the previous window, so that no frame is missed
+     * while the inputs' buffers hold them. Only when the frames have been overwritten, because the acquisition fell
+     * too far behind, does it start over from the newest complete window. The first window starts at the next frame.
+     *
+     * @throws ConnectionLostException
+     * @throws InterruptedException
+     */
+    public void acquire() throws ConnectionLostException, InterruptedException {
+        while (true) {
+            long newest = Long.MAX_VALUE;
+            for (AnalogInput input : inputs) {
+                if (input.getBufferedFrame() < 0) {
+                    input.readBuffered(); // waits for the first sample
+                }
+                newest = Math.min(newest, input.getBufferedFrame());
+            }
+
+            long first = nextFrame >= 0 ? nextFrame : newest + 1;
+            boolean complete = true;
+            for (int i = 0; i < inputs.length && complete; i++) {
+                complete = inputs[i].readBuffered(first, counts[i], 0, frames);
+            }
+            if (complete) {
+                firstFrame = first;
+                nextFrame = first + frames;
+                return;
+            }
+            retries++;
+            nextFrame = newest - frames + 1; // the older frames are being overwritten
+        }
+    }
+
+    /**
+     * @return Returns true if the next window has already arrived, so that {@link #acquire()} would not wait.
+     * @throws ConnectionLostException
+     */
+    public boolean hasWindow() throws ConnectionLostException {
+        if (nextFrame < 0) {
+            return false;
+        }
+        for (AnalogInput input : inputs) {
+            if (input.getBufferedFrame() < nextFrame + frames - 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param input The index of the input, in the order given to the constructor.
+     * @return Returns the raw counts of the last window, oldest first. The array is reused by the next acquisition.
+     */
+    public short[] getCounts(int input) {
+        return counts[input];
+    }
+
+    /**
+     * @return Returns the amount of samples acquired per input.
+     */
+    public int getFrames() {
+        return frames;
+    }
+
+    /**
+     * @return Returns the frame of the first sample of the last window, or -1 before the first acquisition.
+     */
+    public long getFirstFrame() {
+        return firstFrame;
+    }
+
+    /**
+     * @return Returns the number of times the frames were overwritten before they were read, and skipped.
+     */
+    public long getRetries() {
+        return retries;
+    }
+}
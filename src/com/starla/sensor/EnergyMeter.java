@@ -0,0 +1,159 @@
+package com.starla.sensor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Counts the energy through a {@link PowerMeter} over its lifetime, the current day and the current hour, in the local
+ * time zone.
+ * <p>
+ * The hourly and daily counters start over when a new hour or day begins. The boundaries are only computed when one is
+ * crossed, so adding energy costs a comparison and three additions. The counters are small enough to be checkpointed
+ * often with {@link #save(Path)}, and {@link #load(Path, ZoneId)} resumes them after a restart; the counters of an hour
+ * or day that ended in the meantime are dropped on the next addition.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class EnergyMeter {
+    private static final int MAGIC = 0x454E5247; // "ENRG"
+    private static final int VERSION = 1;
+    private static final double JOULES_PER_WH = 3600.0;
+
+    private final ZoneId zone;
+    private double lifetime; // J
+    private double daily; // J
+    private double hourly; // J
+    private long dayStart = Long.MIN_VALUE; // ms
+    private long dayEnd = Long.MIN_VALUE; // ms
+    private long hourStart = Long.MIN_VALUE; // ms
+    private long hourEnd = Long.MIN_VALUE; // ms
+
+    /**
+     * Class constructor, with every counter at zero.
+     *
+     * @param zone The time zone of the days and hours.
+     */
+    public EnergyMeter(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * Adds energy to every counter.
+     *
+     * @param joules      The energy in joules.
+     * @param epochMillis The time of the energy, in milliseconds since 1970-01-01T00:00Z.
+     */
+    public void add(double joules, long epochMillis) {
+        if (epochMillis >= hourEnd || epochMillis < hourStart) {
+            roll(epochMillis);
+        }
+        lifetime += joules;
+        daily += joules;
+        hourly += joules;
+    }
+
+    private void roll(long epochMillis) {
+        ZonedDateTime time = Instant.ofEpochMilli(epochMillis).atZone(zone);
+        ZonedDateTime hour = time.truncatedTo(ChronoUnit.HOURS);
+        ZonedDateTime day = time.truncatedTo(ChronoUnit.DAYS);
+        long start = hour.toInstant().toEpochMilli();
+        if (start != hourStart) {
+            hourly = 0;
+            hourStart = start;
+            hourEnd = hour.plusHours(1).toInstant().toEpochMilli();
+        }
+        start = day.toInstant().toEpochMilli();
+        if (start != dayStart) {
+            daily = 0;
+            dayStart = start;
+            dayEnd = day.plusDays(1).toInstant().toEpochMilli();
+        }
+    }
+
+    /**
+     * @return Returns the energy since the counters were created, in Wh.
+     */
+    public double getLifetime() {
+        return lifetime / JOULES_PER_WH;
+    }
+
+    /**
+     * @return Returns the energy since the beginning of the day of the last addition, in Wh.
+     */
+    public double getDaily() {
+        return daily / JOULES_PER_WH;
+    }
+
+    /**
+     * @return Returns the energy since the beginning of the hour of the last addition, in Wh.
+     */
+    public double getHourly() {
+        return hourly / JOULES_PER_WH;
+    }
+
+    /**
+     * Reads the counters written by {@link #save(Path)}.
+     *
+     * @param file
+     * @param zone The time zone of the days and hours.
+     * @return Returns the counters, or null if the file does not exist.
+     * @throws IOException If the file cannot be read or does not hold energy counters.
+     */
+    public static EnergyMeter load(Path file, ZoneId zone) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " does not hold energy counters");
+            }
+            EnergyMeter meter = new EnergyMeter(zone);
+            meter.lifetime = in.readDouble();
+            meter.daily = in.readDouble();
+            meter.dayStart = in.readLong();
+            meter.dayEnd = in.readLong();
+            meter.hourly = in.readDouble();
+            meter.hourStart = in.readLong();
+            meter.hourEnd = in.readLong();
+            return meter;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the counters, replacing the file atomically where the file system allows it.
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void save(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeDouble(lifetime);
+            out.writeDouble(daily);
+            out.writeLong(dayStart);
+            out.writeLong(dayEnd);
+            out.writeDouble(hourly);
+            out.writeLong(hourStart);
+            out.writeLong(hourEnd);
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
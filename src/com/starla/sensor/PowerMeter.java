@@ -0,0 +1,115 @@
+package com.starla.sensor;
+
+import com.starla.sensor.ammeter.ACS712;
+import com.starla.sensor.voltmeter.IOIOVoltmeter;
+
+/**
+ * Measures the power through a voltmeter and ammeter pair, from readings taken in the same frames.
+ * <p>
+ * Every pair of readings gives an instantaneous power, so the mean power is the mean of the products rather than the
+ * product of two means, and the fluctuations of the load show up in the RMS power. The raw counts are re-mapped
+ * through tables built once, so accumulating a window costs two lookups and a few additions per sample, and nothing is
+ * allocated.
+ * <p>
+ * The energy is integrated with the trapezoidal rule on the frame times, joining each window to the previous one, so
+ * no sample is left out as long as the windows tile the frames.
+ *
+ * @version 1, 17/10/2026
+ * @see AnalogAcquisition
+ */
+public final class PowerMeter {
+    private static final int COUNTS = 1024; // 10-bit ADC
+    private static final double FRAME_PERIOD = 0.001; // s, the IOIO samples at 1 kHz
+    private static final long MAX_GAP = 1000; // frames bridged by the integration
+
+    private final double[] volts = new double[COUNTS];
+    private final double[] amperes = new double[COUNTS];
+    private long count;
+    private double sum;
+    private double sumOfSquares;
+    private long lastFrame = -1;
+    private double lastPower;
+
+    /**
+     * Class constructor.
+     *
+     * @param voltmeter The voltmeter of the pair.
+     * @param ammeter   The ammeter of the pair.
+     */
+    public PowerMeter(IOIOVoltmeter voltmeter, ACS712 ammeter) {
+        for (int i = 0; i < COUNTS; i++) {
+            volts[i] = voltmeter.getVolts(i);
+            amperes[i] = ammeter.getVolts(i);
+        }
+    }
+
+    /**
+     * Adds the instantaneous power of each pair of readings, and integrates it since the last pair accumulated. The
+     * integration restarts, instead of bridging, a gap of over a second or a frame that goes back.
+     *
+     * @param voltageCounts The raw counts of the voltmeter.
+     * @param currentCounts The raw counts of the ammeter, taken in the same frames.
+     * @param off           The index of the first pair.
+     * @param len           The number of pairs.
+     * @param frame         The analog frame of the first pair, the others follow frame by frame.
+     * @return Returns the energy integrated, in joules.
+     */
+    public double accumulate(short[] voltageCounts, short[] currentCounts, int off, int len, long frame) {
+        if (len <= 0) {
+            return 0;
+        }
+        double first = volts[voltageCounts[off]] * amperes[currentCounts[off]];
+        double previous = first;
+        double windowSum = first;
+        double windowSumOfSquares = first * first;
+        for (int i = off + 1; i < off + len; i++) {
+            double power = volts[voltageCounts[i]] * amperes[currentCounts[i]];
+            windowSum += power;
+            windowSumOfSquares += power * power;
+            previous = power;
+        }
+        count += len;
+        sum += windowSum;
+        sumOfSquares += windowSumOfSquares;
+
+        // trapezoids within the window, plus the one joining it to the previous window
+        double energy = (windowSum - (first + previous) / 2) * FRAME_PERIOD;
+        long gap = frame - lastFrame;
+        if (lastFrame >= 0 && gap > 0 && gap <= MAX_GAP) {
+            energy += (lastPower + first) / 2 * gap * FRAME_PERIOD;
+        }
+        lastFrame = frame + len - 1;
+        lastPower = previous;
+        return energy;
+    }
+
+    /**
+     * Starts over the mean and RMS power. The integration goes on.
+     */
+    public void reset() {
+        count = 0;
+        sum = 0;
+        sumOfSquares = 0;
+    }
+
+    /**
+     * @return Returns the number of pairs accumulated.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return Returns the mean power in watts, or NaN if nothing was accumulated.
+     */
+    public double getMeanPower() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    /**
+     * @return Returns the RMS power in watts, or NaN if nothing was accumulated.
+     */
+    public double getRmsPower() {
+        return count == 0 ? Double.NaN : Math.sqrt(sumOfSquares / count);
+    }
+}
@@ -1,6 +1,7 @@
 package com.starla.sensor.ammeter;
 
 import com.starla.sensor.voltmeter.IOIOVoltmeter;
+import com.starla.sensor.voltmeter.SampleEstimator;
 import ioio.lib.api.AnalogInput;
 
 /**
@@ -32,4 +33,23 @@ public final class ACS712 extends IOIOVoltmeter {
                   double toHigh) {
         super(method, sample, analogInput, fromLow, fromHigh, toLow, toHigh);
     }
+
+    /**
+     * Class constructor.
+     *
+     * @param estimator   The strategy used to reduce the readings to a single voltage.
+     * @param sample      Enum type. The amount of readings per estimation.
+     * @param analogInput A pin use for analog input.
+     * @param fromLow     The lower bound of the value's current range.
+     * @param fromHigh    The upper bound of the value's current range.
+     * @param toLow       The lower bound of the value's target range.
+     * @param toHigh      The upper bound of the value's target range.
+     * @see SampleEstimator
+     * @see IOIOVoltmeter.Sample
+     * @see AnalogInput
+     */
+    public ACS712(SampleEstimator estimator, Sample sample, AnalogInput analogInput, double fromLow,
+                  double fromHigh, double toLow, double toHigh) {
+        super(estimator, sample, analogInput, fromLow, fromHigh, toLow, toHigh);
+    }
 }
\ No newline at end of file
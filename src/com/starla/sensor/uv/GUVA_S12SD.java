@@ -1,6 +1,7 @@
 package com.starla.sensor.uv;
 
 import com.starla.sensor.voltmeter.IOIOVoltmeter;
+import com.starla.sensor.voltmeter.SampleEstimator;
 import ioio.lib.api.AnalogInput;
 import ioio.lib.api.exception.ConnectionLostException;
 
@@ -35,6 +36,25 @@ public final class GUVA_S12SD extends IOIOVoltmeter {
         super(method, sample, analogInput, fromLow, fromHigh, toLow, toHigh);
     }
 
+    /**
+     * Class constructor.
+     *
+     * @param estimator   The strategy used to reduce the readings to a single voltage.
+     * @param sample      Enum type. The amount of readings per estimation.
+     * @param analogInput A pin use for analog input.
+     * @param fromLow     The lower bound of the value's current range.
+     * @param fromHigh    The upper bound of the value's current range.
+     * @param toLow       The lower bound of the value's target range.
+     * @param toHigh      The upper bound of the value's target range.
+     * @see SampleEstimator
+     * @see IOIOVoltmeter.Sample
+     * @see AnalogInput
+     */
+    public GUVA_S12SD(SampleEstimator estimator, Sample sample, AnalogInput analogInput, double fromLow,
+                      double fromHigh, double toLow, double toHigh) {
+        super(estimator, sample, analogInput, fromLow, fromHigh, toLow, toHigh);
+    }
+
     /**
      * @return The UV Index
      * @throws ConnectionLostException
@@ -45,6 +65,15 @@ public final class GUVA_S12SD extends IOIOVoltmeter {
         return getVolts() / 0.1;
     }
 
+    /**
+     * @param counts The raw counts of the analog input, at least the amount of samples.
+     * @return The UV Index
+     * @see #getVolts(short[])
+     */
+    public double getUVIndex(short[] counts) {
+        return getVolts(counts) / 0.1;
+    }
+
     /**
      * @param uvIndex UV Index
      * @return UV-A Power (mW/m2)
@@ -0,0 +1,19 @@
+package com.starla.sensor.voltmeter;
+
+/**
+ * Estimates the voltage as the arithmetic mean of the readings.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class AverageEstimator implements SampleEstimator {
+
+    @Override
+    public double estimate(double[] samples, int size) {
+        double total = 0;
+
+        for (int i = 0; i < size; i++) {
+            total += samples[i];
+        }
+        return total / size;
+    }
+}
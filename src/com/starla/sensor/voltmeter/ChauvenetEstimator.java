@@ -0,0 +1,49 @@
+package com.starla.sensor.voltmeter;
+
+/**
+ * Estimates the voltage as the average of the readings that pass the Chauvenet's rejection criteria.
+ * <p>
+ * The first pass accumulates Exi and Exi2, the second one averages the readings that were not rejected.
+ *
+ * @version 1, 17/10/2026
+ * @see IOIOVoltmeter.Sample
+ */
+public final class ChauvenetEstimator implements SampleEstimator {
+    private final double coefficient;
+
+    /**
+     * @param coefficient The Chauvenet's coefficient for the amount of samples.
+     * @see IOIOVoltmeter.Sample#getCoefficient()
+     */
+    public ChauvenetEstimator(double coefficient) {
+        this.coefficient = coefficient;
+    }
+
+    @Override
+    public double estimate(double[] samples, int size) {
+        double total = 0;
+        double Exi2 = 0; // E -> Summation
+
+        for (int i = 0; i < size; i++) {
+            total += samples[i];
+            Exi2 += samples[i] * samples[i];
+        }
+
+        double average = total / size; // Computes the average value.
+        // Computes the standard deviation. Rounding may turn a zero variance into a tiny negative number.
+        double stdDeviation = Math.sqrt(Math.max(0.0, Exi2 / size - average * average));
+        double ks = coefficient * stdDeviation; // computes ks
+
+        int count = 0;
+        total = 0;
+        for (int i = 0; i < size; i++) {
+            if ((samples[i] - average) < ks) {
+                total += samples[i];
+                count++;
+            }
+        }
+
+        // When every reading is equal none of them passes the filter, so the plain average is kept.
+        return (count > 0) ? total / count : average;
+    }
+}
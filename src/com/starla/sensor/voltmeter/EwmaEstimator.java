@@ -0,0 +1,39 @@
+package com.starla.sensor.voltmeter;
+
+/**
+ * Estimates the voltage as an exponentially weighted moving average (EWMA) of every reading seen so far.
+ * <p>
+ * Unlike the other estimators, the average carries over from one window to the next, so a smaller window can be used
+ * while keeping the same smoothing.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class EwmaEstimator implements SampleEstimator {
+    private final double alpha;
+    private double average;
+    private boolean empty = true;
+
+    /**
+     * @param alpha The weight of each new reading, within (0, 1]. The smaller, the smoother.
+     */
+    public EwmaEstimator(double alpha) {
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("The smoothing factor must be within (0, 1]");
+        }
+        this.alpha = alpha;
+    }
+
+    @Override
+    public double estimate(double[] samples, int size) {
+        int i = 0;
+
+        if (empty && size > 0) {
+            average = samples[i++]; // Seeds the average with the first reading.
+            empty = false;
+        }
+        for (; i < size; i++) {
+            average += alpha * (samples[i] - average);
+        }
+        return average;
+    }
+}
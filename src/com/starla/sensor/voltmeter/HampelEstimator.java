@@ -0,0 +1,46 @@
+package com.starla.sensor.voltmeter;
+
+/**
+ * Estimates the voltage as the mean of the readings once the Hampel identifier has replaced the outliers by the
+ * median.
+ * <p>
+ * A reading is an outlier when it is farther from the median than threshold times the scaled median absolute
+ * deviation (MAD). Both medians are computed with quickselect; the deviations are stored in a buffer owned by the
+ * instance, which only grows when the window does.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class HampelEstimator implements SampleEstimator {
+    private static final double MAD_SCALE = 1.4826; // MAD to standard deviation, for normally distributed readings.
+    private final double threshold;
+    private double[] deviations = new double[0];
+
+    /**
+     * @param threshold The amount of scaled MADs a reading may deviate from the median, usually 3.
+     */
+    public HampelEstimator(double threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("The threshold must be positive");
+        }
+        this.threshold = threshold;
+    }
+
+    @Override
+    public double estimate(double[] samples, int size) {
+        if (deviations.length < size) {
+            deviations = new double[size];
+        }
+
+        double median = MedianEstimator.median(samples, size);
+        for (int i = 0; i < size; i++) {
+            deviations[i] = Math.abs(samples[i] - median);
+        }
+        double limit = threshold * MAD_SCALE * MedianEstimator.median(deviations, size);
+
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += (Math.abs(samples[i] - median) > limit) ? median : samples[i];
+        }
+        return total / size;
+    }
+}
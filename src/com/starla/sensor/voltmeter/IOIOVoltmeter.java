@@ -3,9 +3,6 @@ package com.starla.sensor.voltmeter;
 import ioio.lib.api.AnalogInput;
 import ioio.lib.api.exception.ConnectionLostException;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * This class allows a IOIO board behaves like a voltmeter.
  *
@@ -18,8 +15,11 @@ public class IOIOVoltmeter {
     private final double fromHigh;
     private final double toLow;
     private final double toHigh;
-    private final Method method;
+    private final SampleEstimator estimator;
     private final Sample sample;
+    private final double[] storage;
+    private final float[] readings;
+    private final AnalogInput.WindowStatistics statistics = new AnalogInput.WindowStatistics();
 
     /**
      * Class constructor.
@@ -38,8 +38,29 @@ public class IOIOVoltmeter {
      */
     public IOIOVoltmeter(Method method, Sample sample, AnalogInput analogInput, double fromLow, double fromHigh,
                          double toLow, double toHigh) {
-        this.method = method;
+        this(method.newEstimator(sample), sample, analogInput, fromLow, fromHigh, toLow, toHigh);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param estimator   The strategy used to reduce the readings to a single voltage.
+     * @param sample      Enum type. The amount of readings per estimation.
+     * @param analogInput A pin use for analog input.
+     * @param fromLow     The lower bound of the value's current range.
+     * @param fromHigh    The upper bound of the value's current range.
+     * @param toLow       The lower bound of the value's target range.
+     * @param toHigh      The upper bound of the value's target range.
+     * @see SampleEstimator
+     * @see IOIOVoltmeter.Sample
+     * @see AnalogInput
+     */
+    public IOIOVoltmeter(SampleEstimator estimator, Sample sample, AnalogInput analogInput, double fromLow,
+                         double fromHigh, double toLow, double toHigh) {
+        this.estimator = estimator;
         this.sample = sample;
+        this.storage = new double[sample.getSample()];
+        this.readings = new float[sample.getSample()];
         this.analogInput = analogInput;
         this.fromLow = fromLow;
         this.fromHigh = fromHigh;
@@ -48,89 +69,71 @@ public class IOIOVoltmeter {
     }
 
     /**
+     * Reads the amount of samples in bulk and reduces them with the estimator. The readings are stored in buffers
+     * owned by this instance, so no garbage is produced per call.
+     *
      * @return The re-mapped value of the voltage.
      * @throws ConnectionLostException
      * @throws InterruptedException
      */
     public double getVolts() throws ConnectionLostException, InterruptedException {
-        switch (method) {
-            case AVERAGE:
-                return averageMethod(sample);
-            case CHAUVENET:
-                return chauvenetMethod(sample);
-            default:
-                return 8888.0; // It never happens!
+        int size = sample.getSample();
+
+        analogInput.getVoltageBuffered(readings, 0, size); // Reads analog input pin in a single call.
+        for (int i = 0; i < size; i++) {
+            storage[i] = readings[i];
         }
+        return estimate(size);
     }
 
     /**
-     * Gets the mapped value of the voltage, using the average method..
+     * Reduces readings acquired elsewhere, for instance together with other inputs by an
+     * {@link com.starla.sensor.AnalogAcquisition}, instead of reading the analog input.
      *
-     * @param sample The amount of samples.
+     * @param counts The raw counts of the analog input, at least the amount of samples.
      * @return The re-mapped value of the voltage.
-     * @throws ConnectionLostException
-     * @throws InterruptedException
      */
-    private double averageMethod(Sample sample) throws ConnectionLostException, InterruptedException {
-        double total = 0;
+    public double getVolts(short[] counts) {
         int size = sample.getSample();
-        double volts;
-        double value;
-
+        if (counts.length < size) {
+            throw new IllegalArgumentException("Fewer counts than samples");
+        }
+        float reference = analogInput.getReference();
         for (int i = 0; i < size; i++) {
-            total += analogInput.getVoltageBuffered(); // Read analog input _pin
+            storage[i] = (float) counts[i] / 1023.0f * reference; // the same arithmetic as the buffered voltages
         }
-        // Compute the average sample
-        volts = total / size;
-        // For example: Scales volts from 2400mV-5000mV to amperes 0mA-500mA
-        value = map(volts, fromLow, fromHigh, toLow, toHigh);
-
-        return value;
+        return estimate(size);
     }
 
     /**
-     * Gets the mapped value of the voltage, using the Chauvenet's rejection criteria.
+     * Re-maps a single reading, without any estimation.
      *
-     * @param sample The amount of samples.
+     * @param count A raw count of the analog input, from 0 to 1023.
      * @return The re-mapped value of the voltage.
-     * @throws ConnectionLostException
-     * @throws InterruptedException
-     * @see IOIOVoltmeter.Sample
      */
-    private double chauvenetMethod(Sample sample) throws ConnectionLostException, InterruptedException {
-        int size = sample.getSample();
-        double coefficient = sample.getCoefficient();
-        List<Double> storage = new ArrayList<>(size);
-
-        for (int i = 0; i < size; i++) {
-            storage.add((double) analogInput.getVoltageBuffered()); // Reads analog input pin and stores the reading.
-        }
-
-        double total = storage.
-                parallelStream().
-                reduce(0.0, Double::sum); // Adds all the elements.
-
-        double Exi2 = storage.
-                parallelStream().
-                reduce(0.0, (x, y) -> (x + (y * y))); // Computes Exi2 (E -> Summation)
-
-        final double average = total / size; // Computes the average value.
-        double stdDeviation = Math.sqrt(Exi2 / size - Math.pow(average, 2)); // Computes the standard deviation.
-        double ks = coefficient * stdDeviation; // computes ks
-
-        long count = storage.
-                parallelStream().
-                filter(r -> ((r - average) < ks)).
-                count(); // Returns the count of elements.
-
-        total = storage.
-                parallelStream().
-                filter(r -> ((r - average) < ks)).
-                reduce(0.0, Double::sum); // Adds all the elements.
+    public double getVolts(int count) {
+        double volts = (float) count / 1023.0f * analogInput.getReference();
+        return map(constraint(volts, fromLow, fromHigh), fromLow, fromHigh, toLow, toHigh);
+    }
 
-        double newAverage = total / count;
+    private double estimate(int size) {
+        double volts = estimator.estimate(storage, size);
         // For example: Scales volts from 2400mV-5000mV to amperes 0mA-500mA
-        return map(constraint(newAverage, fromLow, fromHigh), fromLow, fromHigh, toLow, toHigh);
+        return map(constraint(volts, fromLow, fromHigh), fromLow, fromHigh, toLow, toHigh);
+    }
+
+    /**
+     * Gets the mapped value of the average voltage over the sliding window of the analog input. Unlike
+     * {@link #getVolts()}, it does not wait for fresh readings, so it returns in constant time.
+     * The window has to be set up beforehand with {@link AnalogInput#setWindow(int)}.
+     *
+     * @return The re-mapped value of the voltage, or NaN if no reading has arrived yet.
+     * @throws ConnectionLostException
+     */
+    public double getWindowVolts() throws ConnectionLostException {
+        analogInput.getWindowStatistics(statistics);
+        double volts = statistics.getMean() * analogInput.getReference();
+        return map(constraint(volts, fromLow, fromHigh), fromLow, fromHigh, toLow, toHigh);
     }
 
     /**
@@ -161,10 +164,27 @@ public class IOIOVoltmeter {
     }
 
     /**
-     * Average method or Chauvenet's method.
+     * Average method or Chauvenet's method. Other estimators are plugged in through {@link SampleEstimator}.
      */
     public enum Method {
-        AVERAGE, CHAUVENET
+        AVERAGE {
+            @Override
+            SampleEstimator newEstimator(Sample sample) {
+                return new AverageEstimator();
+            }
+        },
+        CHAUVENET {
+            @Override
+            SampleEstimator newEstimator(Sample sample) {
+                return new ChauvenetEstimator(sample.getCoefficient());
+            }
+        };
+
+        /**
+         * @param sample The amount of samples.
+         * @return A new estimator implementing this method.
+         */
+        abstract SampleEstimator newEstimator(Sample sample);
     }
 
     /**
@@ -0,0 +1,96 @@
+package com.starla.sensor.voltmeter;
+
+/**
+ * Estimates the voltage as the median of the readings.
+ * <p>
+ * The median is found in place with quickselect, in O(n) expected time.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class MedianEstimator implements SampleEstimator {
+
+    @Override
+    public double estimate(double[] samples, int size) {
+        return median(samples, size);
+    }
+
+    /**
+     * Computes the median of the first size elements, reordering them.
+     *
+     * @param values The values.
+     * @param size   The amount of values.
+     * @return The median; the mean of both central values when size is even.
+     */
+    static double median(double[] values, int size) {
+        int middle = size / 2;
+        double upper = select(values, 0, size - 1, middle);
+
+        if (size % 2 != 0) {
+            return upper;
+        }
+        // After the selection every element below middle is lower or equal, so the lower median is their maximum.
+        double lower = values[0];
+        for (int i = 1; i < middle; i++) {
+            lower = Math.max(lower, values[i]);
+        }
+        return (lower + upper) / 2;
+    }
+
+    /**
+     * Partially sorts values[left..right] so that values[k] holds the element that would be there if the range were
+     * sorted, every element before it is lower or equal and every element after it is greater or equal.
+     *
+     * @param values The values.
+     * @param left   The first index of the range.
+     * @param right  The last index of the range.
+     * @param k      The index to select, between left and right.
+     * @return values[k].
+     */
+    static double select(double[] values, int left, int right, int k) {
+        while (left < right) {
+            // Median of three pivot, so already ordered windows do not degrade to O(n^2).
+            int middle = (left + right) >>> 1;
+            if (values[middle] < values[left]) {
+                swap(values, left, middle);
+            }
+            if (values[right] < values[left]) {
+                swap(values, left, right);
+            }
+            if (values[right] < values[middle]) {
+                swap(values, middle, right);
+            }
+            double pivot = values[middle];
+
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(values, i, j);
+                    i++;
+                    j--;
+                }
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                break; // values[j + 1..i - 1] are equal to the pivot.
+            }
+        }
+        return values[k];
+    }
+
+    private static void swap(double[] values, int i, int j) {
+        double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
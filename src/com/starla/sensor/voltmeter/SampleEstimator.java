@@ -0,0 +1,22 @@
+package com.starla.sensor.voltmeter;
+
+/**
+ * Strategy used by an {@link IOIOVoltmeter} to reduce a window of readings to a single voltage.
+ * <p>
+ * Implementations must not allocate per call; any working storage is created once and reused, so an estimator can
+ * keep up with the 1 kHz analog stream. An estimator instance belongs to a single voltmeter and is not thread-safe.
+ *
+ * @version 1, 17/10/2026
+ * @see IOIOVoltmeter
+ */
+public interface SampleEstimator {
+
+    /**
+     * Estimates the voltage represented by a window of readings.
+     *
+     * @param samples The readings, in volts. Implementations are allowed to reorder the first size elements.
+     * @param size    The amount of readings stored in samples.
+     * @return The estimated voltage.
+     */
+    double estimate(double[] samples, int size);
+}
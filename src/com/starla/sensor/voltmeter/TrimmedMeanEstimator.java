@@ -0,0 +1,38 @@
+package com.starla.sensor.voltmeter;
+
+/**
+ * Estimates the voltage as the mean of the readings once the lowest and the highest ones have been discarded.
+ * <p>
+ * Both tails are separated in place with quickselect, in O(n) expected time.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class TrimmedMeanEstimator implements SampleEstimator {
+    private final double fraction;
+
+    /**
+     * @param fraction The fraction of readings discarded from each tail, from 0 (average) to less than 0.5 (median).
+     */
+    public TrimmedMeanEstimator(double fraction) {
+        if (fraction < 0 || fraction >= 0.5) {
+            throw new IllegalArgumentException("The trimmed fraction must be within [0, 0.5)");
+        }
+        this.fraction = fraction;
+    }
+
+    @Override
+    public double estimate(double[] samples, int size) {
+        int trimmed = (int) (size * fraction);
+        int last = size - 1 - trimmed;
+        double total = 0;
+
+        if (trimmed > 0) {
+            MedianEstimator.select(samples, 0, size - 1, trimmed); // The lowest readings end up before trimmed.
+            MedianEstimator.select(samples, trimmed, size - 1, last); // The highest ones end up after last.
+        }
+        for (int i = trimmed; i <= last; i++) {
+            total += samples[i];
+        }
+        return total / (last - trimmed + 1);
+    }
+}
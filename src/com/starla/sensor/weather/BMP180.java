@@ -4,6 +4,8 @@ package com.starla.sensor.weather;
 import ioio.lib.api.TwiMaster;
 import ioio.lib.api.exception.ConnectionLostException;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * This class is based on SFE_BMP180 library for arduino, designed by Mike Grusin, SparkFun Electronics.
  * <p>
@@ -22,19 +24,16 @@ public final class BMP180 {
     private static final int BMP180_COMMAND_PRESSURE_1 = 0x74;
     private static final int BMP180_COMMAND_PRESSURE_2 = 0xB4;
     private static final int BMP180_COMMAND_PRESSURE_3 = 0xF4;
-    private static final byte[] AC1_REG_ADDRESS = {(byte) 0xAA, (byte) 0xAB}; // {MSB, LSB}
-    private static final byte[] AC2_REG_ADDRESS = {(byte) 0xAC, (byte) 0xAD};
-    private static final byte[] AC3_REG_ADDRESS = {(byte) 0xAE, (byte) 0xAF};
-    private static final byte[] AC4_REG_ADDRESS = {(byte) 0xB0, (byte) 0xB1};
-    private static final byte[] AC5_REG_ADDRESS = {(byte) 0xB2, (byte) 0xB3};
-    private static final byte[] AC6_REG_ADDRESS = {(byte) 0xB4, (byte) 0xB5};
-    private static final byte[] B1_REG_ADDRESS = {(byte) 0xB6, (byte) 0xB7};
-    private static final byte[] B2_REG_ADDRESS = {(byte) 0xB8, (byte) 0xB9};
-    private static final byte[] MB_REG_ADDRESS = {(byte) 0xBA, (byte) 0xBB};
-    private static final byte[] MC_REG_ADDRESS = {(byte) 0xBC, (byte) 0xBD};
-    private static final byte[] MD_REG_ADDRESS = {(byte) 0xBE, (byte) 0xBF};
+    // Asynchronous requests keep a reference to the data until it is sent, so it must never change.
+    private static final byte[] TEMPERATURE_REQUEST = {(byte) BMP180_REG_CONTROL, (byte) BMP180_COMMAND_TEMPERATURE};
+    private static final byte[] RESULT_REQUEST = {(byte) BMP180_REG_RESULT};
+    private static final byte[] CALIBRATION_REQUEST = {(byte) 0xAA}; // AC1 (MSB) to MD (LSB), 11 words
+    private static final int CALIBRATION_SIZE = 22;
     private final TwiMaster twi;
     private final boolean SEVEN_BIT_ADDRESS = false;
+    private final AtomicLong transactions = new AtomicLong();
+    private final byte[] temperatureResponse = new byte[2];
+    private final byte[] pressureResponse = new byte[3];
     private double c5;
     private double c6;
     private double mc;
@@ -72,41 +71,33 @@ public final class BMP180 {
      * @throws InterruptedException
      */
     private boolean begin() throws ConnectionLostException, InterruptedException {
-        if (readInt(AC1_REG_ADDRESS) &&
-                readInt(AC2_REG_ADDRESS) &&
-                readInt(AC3_REG_ADDRESS) &&
-                readUInt(AC4_REG_ADDRESS) &&
-                readUInt(AC5_REG_ADDRESS) &&
-                readUInt(AC6_REG_ADDRESS) &&
-                readInt(B1_REG_ADDRESS) &&
-                readInt(B2_REG_ADDRESS) &&
-                readInt(MB_REG_ADDRESS) &&
-                readInt(MC_REG_ADDRESS) &&
-                readInt(MD_REG_ADDRESS)) {
-            computePolynomials();
+        byte[] calibration = new byte[CALIBRATION_SIZE];
+
+        // the register address auto-increments, so the whole table is read in a single transaction
+        if (writeRead(CALIBRATION_REQUEST, calibration)) {
+            computePolynomials(calibration);
             return true;
         }
         return false;
     }
 
     /**
-     * @throws ConnectionLostException
-     * @throws InterruptedException
+     * @param calibration The calibration table, from reg 0xAA to reg 0xBF.
      */
-    private void computePolynomials() throws ConnectionLostException, InterruptedException {
+    private void computePolynomials(byte[] calibration) {
         double c3, c4, b1;
 
-        int AC1 = getIntCoefficient(AC1_REG_ADDRESS);
-        int AC2 = getIntCoefficient(AC2_REG_ADDRESS);
-        int AC3 = getIntCoefficient(AC3_REG_ADDRESS);
-        int AC4 = getUIntCoefficient(AC4_REG_ADDRESS);
-        int AC5 = getUIntCoefficient(AC5_REG_ADDRESS);
-        int AC6 = getUIntCoefficient(AC6_REG_ADDRESS);
-        int VB1 = getIntCoefficient(B1_REG_ADDRESS);
-        int VB2 = getIntCoefficient(B2_REG_ADDRESS);
-        int MB = getIntCoefficient(MB_REG_ADDRESS);
-        int MC = getIntCoefficient(MC_REG_ADDRESS);
-        int MD = getIntCoefficient(MD_REG_ADDRESS);
+        int AC1 = getIntCoefficient(calibration, 0);
+        int AC2 = getIntCoefficient(calibration, 2);
+        int AC3 = getIntCoefficient(calibration, 4);
+        int AC4 = getUIntCoefficient(calibration, 6);
+        int AC5 = getUIntCoefficient(calibration, 8);
+        int AC6 = getUIntCoefficient(calibration, 10);
+        int VB1 = getIntCoefficient(calibration, 12);
+        int VB2 = getIntCoefficient(calibration, 14);
+        int MB = getIntCoefficient(calibration, 16);
+        int MC = getIntCoefficient(calibration, 18);
+        int MD = getIntCoefficient(calibration, 20);
 
         /*
         System.out.println("AC1 = " + AC1);
@@ -168,7 +159,7 @@ public final class BMP180 {
      */
     private int startTemperature() throws ConnectionLostException, InterruptedException {
         //write 0x2E int reg 0xF4
-        if (writeBytes(new byte[]{(byte) BMP180_REG_CONTROL, (byte) BMP180_COMMAND_TEMPERATURE})) {
+        if (writeBytes(TEMPERATURE_REQUEST)) {
             return 5;
         }
         return 0;
@@ -180,14 +171,23 @@ public final class BMP180 {
      * @throws InterruptedException
      */
     public double getTemperature() throws ConnectionLostException, InterruptedException {
-        double tu, a, t;
         int delay = startTemperature();
         assert delay > 0 : "start temperature measure fail";
         Thread.sleep(delay);
         // read reg 0xF6 (MSB), 0xF7 (LSB)
-        byte[] response = readBytes(new byte[]{(byte) BMP180_REG_RESULT, (byte) 0xF7});
+        writeRead(RESULT_REQUEST, temperatureResponse);
 
-        tu = ((int) response[0] * 256) + (int) response[1];
+        return computeTemperature(temperatureResponse);
+    }
+
+    /**
+     * @param response The uncompensated temperature, as read from 0xF6 (MSB), 0xF7 (LSB).
+     * @return Returns the temperature in Celsius degrees.
+     */
+    double computeTemperature(byte[] response) {
+        double tu, a, t;
+
+        tu = Byte.toUnsignedInt(response[0]) * 256 + Byte.toUnsignedInt(response[1]);
         a = c5 * (tu - c6);
         t = a + mc / (a + md);
 
@@ -201,35 +201,8 @@ public final class BMP180 {
      * @throws InterruptedException
      */
     private int startPressure(Oversampling oversampling) throws ConnectionLostException, InterruptedException {
-        byte[] request = new byte[2];
-        request[0] = (byte) BMP180_REG_CONTROL;
-        int delay;
-
-        switch (oversampling) {
-            case VERY_LOW_RES:
-                request[1] = BMP180_COMMAND_PRESSURE_0;
-                delay = 5; // delay
-                break;
-            case LOW_RES:
-                request[1] = BMP180_COMMAND_PRESSURE_1;
-                delay = 8;
-                break;
-            case MEDIUM_RES:
-                request[1] = (byte) BMP180_COMMAND_PRESSURE_2;
-                delay = 14;
-                break;
-            case HIGH_RES:
-                request[1] = (byte) BMP180_COMMAND_PRESSURE_3;
-                delay = 26;
-                break;
-            default:
-                request[1] = BMP180_COMMAND_PRESSURE_1;
-                delay = 8;
-                break;
-        }
-
-        if (writeBytes(request)) { // write BMP180_COMMAND_PRESSURE_X into reg 0xF4
-            return delay;
+        if (writeBytes(oversampling.request)) { // write BMP180_COMMAND_PRESSURE_X into reg 0xF4
+            return oversampling.delay;
         }
 
         return 0;
@@ -244,12 +217,23 @@ public final class BMP180 {
      */
     public double getPressure(double temperature, Oversampling oversampling) throws ConnectionLostException,
             InterruptedException {
-        double pu, s, x, y, z, pressure;
         int delay = startPressure(oversampling);
         assert delay > 0 : "start pressure measure fail";
         Thread.sleep(delay); // delay
 
-        byte[] response = readBytes(new byte[]{(byte) BMP180_REG_RESULT, (byte) 0xF7, (byte) 0xF8});
+        // read reg 0xF6 (MSB), 0xF7 (LSB), 0xF8 (XLSB)
+        writeRead(RESULT_REQUEST, pressureResponse);
+
+        return computePressure(temperature, pressureResponse);
+    }
+
+    /**
+     * @param temperature temperature in Celsius degrees.
+     * @param response    The uncompensated pressure, as read from 0xF6 (MSB), 0xF7 (LSB), 0xF8 (XLSB).
+     * @return Returns the absolute pressure in mb.
+     */
+    double computePressure(double temperature, byte[] response) {
+        double pu, s, x, y, z, pressure;
 
         pu = Byte.toUnsignedInt(response[0]) * 256.0 + Byte.toUnsignedInt(response[1]) +
                 Byte.toUnsignedInt(response[2]) / 256.0;
@@ -262,6 +246,45 @@ public final class BMP180 {
         return pressure;
     }
 
+    /**
+     * Queues the start of a temperature conversion, without waiting for the transaction.
+     *
+     * @return The pending transaction.
+     * @throws ConnectionLostException
+     */
+    TwiMaster.Result startTemperatureAsync() throws ConnectionLostException {
+        transactions.incrementAndGet();
+        return twi.writeReadAsync(BMP180_ADDRESS, SEVEN_BIT_ADDRESS, TEMPERATURE_REQUEST,
+                TEMPERATURE_REQUEST.length, null, 0);
+    }
+
+    /**
+     * Queues the start of a pressure conversion, without waiting for the transaction.
+     *
+     * @param oversampling
+     * @return The pending transaction.
+     * @throws ConnectionLostException
+     */
+    TwiMaster.Result startPressureAsync(Oversampling oversampling) throws ConnectionLostException {
+        transactions.incrementAndGet();
+        return twi.writeReadAsync(BMP180_ADDRESS, SEVEN_BIT_ADDRESS, oversampling.request,
+                oversampling.request.length, null, 0);
+    }
+
+    /**
+     * Queues the read of the conversion result in a single transaction, the register address auto-increments.
+     *
+     * @param response Receives the result, 2 bytes for a temperature, 3 bytes for a pressure. It must not be touched
+     *                 until the transaction is complete.
+     * @return The pending transaction.
+     * @throws ConnectionLostException
+     */
+    TwiMaster.Result readResultAsync(byte[] response) throws ConnectionLostException {
+        transactions.incrementAndGet();
+        return twi.writeReadAsync(BMP180_ADDRESS, SEVEN_BIT_ADDRESS, RESULT_REQUEST, RESULT_REQUEST.length,
+                response, response.length);
+    }
+
     /**
      * Converts the absolute pressure to sea-level pressure (as used in weather data)
      *
@@ -285,57 +308,28 @@ public final class BMP180 {
     }
 
     /**
-     * @param request The register that has to be read.
-     * @return Returns true if the read was success.
-     * @throws ConnectionLostException
-     * @throws InterruptedException
+     * @return Returns the number of TWI transactions issued to the sensor.
      */
-    private boolean readInt(byte[] request) throws ConnectionLostException, InterruptedException {
-        return twi.writeRead(BMP180_ADDRESS, SEVEN_BIT_ADDRESS, request, request.length, null, 0);
+    public long getTransactionCount() {
+        return transactions.get();
     }
 
     /**
-     * @param request The register that has to be read.
-     * @return Returns true if the reading was successful.
-     * @throws ConnectionLostException
-     * @throws InterruptedException
+     * @param data   The bytes read from the sensor.
+     * @param offset The position of the MSB.
+     * @return returns the signed coefficient stored in the register.
      */
-    private boolean readUInt(byte[] request) throws ConnectionLostException, InterruptedException {
-        return twi.writeRead(BMP180_ADDRESS, SEVEN_BIT_ADDRESS, request, request.length, null, 0);
+    private static int getIntCoefficient(byte[] data, int offset) {
+        return (data[offset] << 8) | Byte.toUnsignedInt(data[offset + 1]);
     }
 
     /**
-     * @param request The register that has to be read.
-     * @return returns the coefficient stored in the register.
-     * @throws ConnectionLostException
-     * @throws InterruptedException
+     * @param data   The bytes read from the sensor.
+     * @param offset The position of the MSB.
+     * @return returns the unsigned coefficient stored in the register.
      */
-    private int getIntCoefficient(byte[] request) throws ConnectionLostException, InterruptedException {
-        byte[] msb = new byte[1];
-        byte[] lsb = new byte[1];
-
-        if (twi.writeRead(BMP180_ADDRESS, SEVEN_BIT_ADDRESS, new byte[]{request[0]}, 1, msb, 1) &&
-                twi.writeRead(BMP180_ADDRESS, SEVEN_BIT_ADDRESS, new byte[]{request[1]}, 1, lsb, 1)) {
-            return (((int) msb[0] << 8) + (int) lsb[0]);
-        }
-        return 0;
-    }
-
-    /**
-     * @param request The register that has to be read.
-     * @return returns the coefficient stored in the register.
-     * @throws ConnectionLostException
-     * @throws InterruptedException
-     */
-    private int getUIntCoefficient(byte[] request) throws ConnectionLostException, InterruptedException {
-        byte[] msb = new byte[1];
-        byte[] lsb = new byte[1];
-
-        if (twi.writeRead(BMP180_ADDRESS, SEVEN_BIT_ADDRESS, new byte[]{request[0]}, 1, msb, 1) &&
-                twi.writeRead(BMP180_ADDRESS, SEVEN_BIT_ADDRESS, new byte[]{request[1]}, 1, lsb, 1)) {
-            return ((Byte.toUnsignedInt(msb[0]) << 8) + Byte.toUnsignedInt(lsb[0]));
-        }
-        return 0;
+    private static int getUIntCoefficient(byte[] data, int offset) {
+        return (Byte.toUnsignedInt(data[offset]) << 8) | Byte.toUnsignedInt(data[offset + 1]);
     }
 
     /**
@@ -347,26 +341,22 @@ public final class BMP180 {
      * @throws InterruptedException
      */
     private boolean writeBytes(byte[] request) throws ConnectionLostException, InterruptedException {
-        return twi.writeRead(BMP180_ADDRESS, SEVEN_BIT_ADDRESS, request, request.length, null, 0);
+        return writeRead(request, null);
     }
 
     /**
-     * @param request
-     * @return Returns the bytes that were requested.
+     * Reads consecutive registers in a single transaction, the register address auto-increments.
+     *
+     * @param request  The first register that has to be read, or the register and the data to write.
+     * @param response Receives the register values, null if nothing has to be read.
+     * @return Returns true if the transaction was successful.
      * @throws ConnectionLostException
      * @throws InterruptedException
      */
-    private byte[] readBytes(byte[] request) throws ConnectionLostException, InterruptedException {
-        byte[] singleResponse = new byte[1];
-        byte[] totalResponse = new byte[request.length];
-
-        for (int i = 0; i < request.length; i++) {
-            // because i'm reading, i must send the request one reg at a time.
-            if (twi.writeRead(BMP180_ADDRESS, SEVEN_BIT_ADDRESS, new byte[]{request[i]}, 1, singleResponse, 1)) {
-                totalResponse[i] = (byte) Byte.toUnsignedInt(singleResponse[0]);
-            }
-        }
-        return totalResponse;
+    private boolean writeRead(byte[] request, byte[] response) throws ConnectionLostException, InterruptedException {
+        transactions.incrementAndGet();
+        return twi.writeRead(BMP180_ADDRESS, SEVEN_BIT_ADDRESS, request, request.length, response,
+                response == null ? 0 : response.length);
     }
 
     /**
@@ -380,10 +370,32 @@ public final class BMP180 {
     }
 
     /**
-     *
+     * The pressure resolution, the higher the longer the conversion takes.
      */
     public enum Oversampling {
-        VERY_LOW_RES, LOW_RES, MEDIUM_RES, HIGH_RES
+        VERY_LOW_RES(BMP180_COMMAND_PRESSURE_0, 5),
+        LOW_RES(BMP180_COMMAND_PRESSURE_1, 8),
+        MEDIUM_RES(BMP180_COMMAND_PRESSURE_2, 14),
+        HIGH_RES(BMP180_COMMAND_PRESSURE_3, 26);
+
+        private final byte[] request;
+        private final int delay;
+
+        /**
+         * @param command The command written into reg 0xF4.
+         * @param delay   The conversion time, in milliseconds.
+         */
+        Oversampling(int command, int delay) {
+            this.request = new byte[]{(byte) BMP180_REG_CONTROL, (byte) command};
+            this.delay = delay;
+        }
+
+        /**
+         * @return The conversion time, in milliseconds.
+         */
+        public int getDelay() {
+            return delay;
+        }
     }
 
 }
\ No newline at end of file
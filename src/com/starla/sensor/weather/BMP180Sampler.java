@@ -0,0 +1,194 @@
+package com.starla.sensor.weather;
+
+import ioio.lib.api.TwiMaster;
+import ioio.lib.api.exception.ConnectionLostException;
+
+/**
+ * Acquires the BMP180 in the background, so the reader never waits for a conversion.
+ * <p>
+ * The TWI transactions are queued with {@link TwiMaster#writeReadAsync}, the command that starts the next conversion
+ * is queued right behind the read of the previous result, and the temperature is compensated while the pressure
+ * conversion is still running. The latest compensated values are published as an immutable {@link Measurement}.
+ * A failed transaction is counted and retried after the interval, so a sensor that stops answering is not polled in a
+ * tight loop.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class BMP180Sampler {
+    private static final int TEMPERATURE_DELAY = 5; // ms
+    private static final int RETRY_DELAY = 100; // ms, when sampling as fast as possible
+
+    private final BMP180 sensor;
+    private final BMP180.Oversampling oversampling;
+    private final long interval;
+    private final byte[] temperatureResponse = new byte[2];
+    private final byte[] pressureResponse = new byte[3];
+    private final Thread thread;
+    private volatile Measurement measurement;
+    private volatile long failures;
+
+    /**
+     * @param sensor       A sensor whose calibration has already been read.
+     * @param oversampling
+     * @param interval     The minimum time between measurements, in milliseconds, 0 to sample as fast as possible.
+     */
+    public BMP180Sampler(BMP180 sensor, BMP180.Oversampling oversampling, long interval) {
+        this.sensor = sensor;
+        this.oversampling = oversampling;
+        this.interval = interval;
+        this.thread = new Thread(this::run, "BMP180Sampler");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the acquisition.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops the acquisition. Pending transactions are abandoned.
+     */
+    public void stop() {
+        thread.interrupt();
+    }
+
+    /**
+     * @return Returns the latest measurement, or null if none is complete yet.
+     */
+    public Measurement getMeasurement() {
+        return measurement;
+    }
+
+    /**
+     * @return Returns the number of TWI transactions that failed since the acquisition started.
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Waits until the first measurement is complete.
+     *
+     * @return Returns the latest measurement.
+     * @throws ConnectionLostException
+     * @throws InterruptedException
+     */
+    public Measurement awaitMeasurement() throws ConnectionLostException, InterruptedException {
+        synchronized (this) {
+            while (measurement == null) {
+                if (!thread.isAlive()) {
+                    throw new ConnectionLostException();
+                }
+                wait(100);
+            }
+        }
+        return measurement;
+    }
+
+    private void run() {
+        try {
+            TwiMaster.Result start = sensor.startTemperatureAsync();
+            long began = System.currentTimeMillis();
+            while (true) {
+                if (!start.waitReady()) { // the transaction failed, start over
+                    start = retry();
+                    began = System.currentTimeMillis();
+                    continue;
+                }
+                Thread.sleep(TEMPERATURE_DELAY);
+                TwiMaster.Result temperatureRead = sensor.readResultAsync(temperatureResponse);
+                start = sensor.startPressureAsync(oversampling);
+                if (!temperatureRead.waitReady() || !start.waitReady()) {
+                    start = retry();
+                    began = System.currentTimeMillis();
+                    continue;
+                }
+                // compensate while the pressure conversion runs
+                long temperatureTime = System.currentTimeMillis();
+                double temperature = sensor.computeTemperature(temperatureResponse);
+
+                Thread.sleep(oversampling.getDelay());
+                TwiMaster.Result pressureRead = sensor.readResultAsync(pressureResponse);
+                long wait = interval - (System.currentTimeMillis() - began);
+                if (wait <= 0) { // chain the next conversion behind this read
+                    start = sensor.startTemperatureAsync();
+                    began = System.currentTimeMillis();
+                }
+                if (pressureRead.waitReady()) {
+                    double pressure = sensor.computePressure(temperature, pressureResponse);
+                    publish(new Measurement(temperature, temperatureTime, pressure, System.currentTimeMillis()));
+                } else {
+                    failures++;
+                }
+
+                if (wait > 0) {
+                    Thread.sleep(wait);
+                    start = sensor.startTemperatureAsync();
+                    began = System.currentTimeMillis();
+                }
+            }
+        } catch (ConnectionLostException | InterruptedException e) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    private TwiMaster.Result retry() throws ConnectionLostException, InterruptedException {
+        failures++; // only this thread writes it
+        Thread.sleep(Math.max(interval, RETRY_DELAY));
+        return sensor.startTemperatureAsync();
+    }
+
+    private synchronized void publish(Measurement measurement) {
+        this.measurement = measurement;
+        notifyAll();
+    }
+
+    /**
+     * A compensated temperature and pressure, and the time each result was read.
+     */
+    public static final class Measurement {
+        private final double temperature;
+        private final long temperatureTime;
+        private final double pressure;
+        private final long pressureTime;
+
+        Measurement(double temperature, long temperatureTime, double pressure, long pressureTime) {
+            this.temperature = temperature;
+            this.temperatureTime = temperatureTime;
+            this.pressure = pressure;
+            this.pressureTime = pressureTime;
+        }
+
+        /**
+         * @return Returns the temperature in Celsius degrees.
+         */
+        public double getTemperature() {
+            return temperature;
+        }
+
+        /**
+         * @return Returns the time the temperature was read, in milliseconds since the epoch.
+         */
+        public long getTemperatureTime() {
+            return temperatureTime;
+        }
+
+        /**
+         * @return Returns the absolute pressure in mb.
+         */
+        public double getPressure() {
+            return pressure;
+        }
+
+        /**
+         * @return Returns the time the pressure was read, in milliseconds since the epoch.
+         */
+        public long getPressureTime() {
+            return pressureTime;
+        }
+    }
+}
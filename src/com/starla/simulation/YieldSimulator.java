@@ -0,0 +1,264 @@
+package com.starla.simulation;
+
+import com.starla.motor.Pan;
+import com.starla.motor.Tilt;
+import com.starla.position.*;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Simulates the direct-beam energy collected during a year by a fixed panel, a single-axis (pan) tracker and a
+ * dual-axis (pan and tilt) tracker, evaluating {@link SunPosition} for every minute.
+ * <p>
+ * The trackers are constrained like the {@link Pan} and {@link Tilt} servomotors, and the sun's azimuth is taken as
+ * the servomotors take it, the angle &Gamma; measured westward from the south. The fixed panel, and the single-axis
+ * tracker, are tilted by the latitude towards the equator. The direct normal irradiance follows the Meinel clear-sky
+ * model with the Kasten-Young air mass, so the results are meant for comparing trackers and sites, not for predicting
+ * the yield of a real panel.
+ * <p>
+ * The minutes of every site are split into one fork/join task per day, so the work scales with the pool's parallelism.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class YieldSimulator {
+    private static final long MINUTE = 60_000L; // ms
+    private static final int MINUTES_PER_TASK = 1440;
+    private static final double SOLAR_CONSTANT = 1353.0; // W/m2
+    private static final double HORIZON = Math.PI / 2;
+
+    private final ForkJoinPool pool;
+    private final double temperature;
+    private final double pressure;
+
+    /**
+     * @param pool        The pool that runs the simulation.
+     * @param temperature Annual average temperature in Celsius degrees.
+     * @param pressure    Annual average pressure, as for {@link Weather}.
+     */
+    public YieldSimulator(ForkJoinPool pool, double temperature, double pressure) {
+        this.pool = pool;
+        this.temperature = temperature;
+        this.pressure = pressure;
+    }
+
+    /**
+     * @param longitudes Longitude of every site in radians, as for {@link Location}.
+     * @param latitudes  Latitude of every site in radians, as for {@link Location}.
+     * @param year       The UT year to simulate.
+     * @return Returns the yield of every site, in the same order.
+     */
+    public List<Yield> simulate(double[] longitudes, double[] latitudes, int year) {
+        long from = ZonedDateTime.of(year, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+        long to = ZonedDateTime.of(year + 1, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+        int minutes = (int) ((to - from) / MINUTE);
+
+        List<YieldTask> tasks = new ArrayList<>(longitudes.length);
+        for (int i = 0; i < longitudes.length; i++) {
+            tasks.add(new YieldTask(new Location(longitudes[i], latitudes[i]), latitudes[i], from, 0, minutes));
+        }
+        pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                invokeAll(tasks);
+                return null;
+            }
+        });
+
+        List<Yield> yields = new ArrayList<>(tasks.size());
+        for (YieldTask task : tasks) {
+            yields.add(task.join().toYield());
+        }
+        return yields;
+    }
+
+    /**
+     * Runs the simulation for a site and reports the yield and the evaluation rate.
+     *
+     * @param args longitude and latitude in degrees, the year, and optionally the number of threads.
+     */
+    public static void main(String[] args) {
+        double longitude = Math.toRadians(Double.parseDouble(args[0]));
+        double latitude = Math.toRadians(Double.parseDouble(args[1]));
+        int year = Integer.parseInt(args[2]);
+        int parallelism = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        // the pressure is given as Tracker gives it to Weather
+        YieldSimulator simulator = new YieldSimulator(new ForkJoinPool(parallelism), 20.0, 1.0);
+        simulator.simulate(new double[]{longitude}, new double[]{latitude}, year); // warm up
+
+        long start = System.nanoTime();
+        Yield yield = simulator.simulate(new double[]{longitude}, new double[]{latitude}, year).get(0);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("Fixed (Wh/m2)\tSingle (Wh/m2)\tDual (Wh/m2)\tSingle gain\tDual gain\tEvaluations/s");
+        System.out.println(Math.round(yield.getFixed()) + "\t\t" + Math.round(yield.getSingleAxis()) + "\t\t" +
+                Math.round(yield.getDualAxis()) + "\t\t" + yield.getSingleAxisGain() + "\t" +
+                yield.getDualAxisGain() + "\t" + Math.round(yield.getEvaluations() / seconds));
+    }
+
+    /**
+     * @param zenith Zenith angle of the sun in radians.
+     * @return Returns the clear-sky direct normal irradiance in W/m2.
+     */
+    static double directNormalIrradiance(double zenith) {
+        double airMass = 1.0 / (Math.cos(zenith) + 0.50572 * Math.pow(96.07995 - Math.toDegrees(zenith), -1.6364));
+        return SOLAR_CONSTANT * Math.pow(0.7, Math.pow(airMass, 0.678));
+    }
+
+    /**
+     * @param zenith       Zenith angle of the sun in radians.
+     * @param azimuth      Azimuth angle &Gamma; of the sun in radians.
+     * @param tilt         Tilt of the panel from the horizontal in radians.
+     * @param panelAzimuth Azimuth angle &Gamma; the panel faces in radians.
+     * @return Returns the cosine of the incidence angle, 0 if the sun is behind the panel.
+     */
+    static double incidence(double zenith, double azimuth, double tilt, double panelAzimuth) {
+        double cosine = Math.cos(zenith) * Math.cos(tilt) +
+                Math.sin(zenith) * Math.sin(tilt) * Math.cos(azimuth - panelAzimuth);
+        return Math.max(0, cosine);
+    }
+
+    private static double constraint(double value, int low, int high) {
+        return Math.min(Math.max(value, Math.toRadians(low)), Math.toRadians(high));
+    }
+
+    private final class YieldTask extends RecursiveTask<Sum> {
+        private static final long serialVersionUID = 1L;
+
+        private final Location location;
+        private final double latitude;
+        private final long start;
+        private final int from;
+        private final int to;
+
+        YieldTask(Location location, double latitude, long start, int from, int to) {
+            this.location = location;
+            this.latitude = latitude;
+            this.start = start;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Sum compute() {
+            if (to - from > MINUTES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                YieldTask left = new YieldTask(location, latitude, start, from, middle);
+                left.fork();
+                Sum sum = new YieldTask(location, latitude, start, middle, to).compute();
+                sum.add(left.join());
+                return sum;
+            }
+
+            Weather weather = new Weather(temperature, pressure);
+            double fixedTilt = Math.abs(latitude);
+            double fixedAzimuth = latitude >= 0 ? 0 : Math.PI; // facing the equator
+            Sum sum = new Sum();
+            for (int minute = from; minute < to; minute++) {
+                Time time = new Time(ZonedDateTime.ofInstant(Instant.ofEpochMilli(start + minute * MINUTE),
+                        ZoneOffset.UTC));
+                time.computeTime();
+                SunPosition sunPosition = new SunPosition(new ObservationPoint(time, location, weather));
+                sunPosition.computePosition();
+                sum.evaluations++;
+
+                double zenith = sunPosition.getZenith();
+                if (zenith >= HORIZON) {
+                    continue;
+                }
+                double azimuth = sunPosition.getAzimuth();
+                double energy = directNormalIrradiance(zenith) / 60.0; // Wh/m2 during a minute
+                double pan = constraint(azimuth, Pan.MIN_ANGLE, Pan.MAX_ANGLE);
+                double tilt = constraint(zenith, Tilt.MIN_ANGLE, Tilt.MAX_ANGLE);
+
+                sum.fixed += energy * incidence(zenith, azimuth, fixedTilt, fixedAzimuth);
+                sum.singleAxis += energy * incidence(zenith, azimuth, fixedTilt, pan);
+                sum.dualAxis += energy * incidence(zenith, azimuth, tilt, pan);
+            }
+            return sum;
+        }
+    }
+
+    private static final class Sum {
+        private double fixed;
+        private double singleAxis;
+        private double dualAxis;
+        private long evaluations;
+
+        void add(Sum other) {
+            fixed += other.fixed;
+            singleAxis += other.singleAxis;
+            dualAxis += other.dualAxis;
+            evaluations += other.evaluations;
+        }
+
+        Yield toYield() {
+            return new Yield(fixed, singleAxis, dualAxis, evaluations);
+        }
+    }
+
+    /**
+     * The direct-beam energy collected by each kind of panel during the simulated year.
+     */
+    public static final class Yield {
+        private final double fixed;
+        private final double singleAxis;
+        private final double dualAxis;
+        private final long evaluations;
+
+        Yield(double fixed, double singleAxis, double dualAxis, long evaluations) {
+            this.fixed = fixed;
+            this.singleAxis = singleAxis;
+            this.dualAxis = dualAxis;
+            this.evaluations = evaluations;
+        }
+
+        /**
+         * @return Returns the energy collected by the fixed panel, in Wh/m2.
+         */
+        public double getFixed() {
+            return fixed;
+        }
+
+        /**
+         * @return Returns the energy collected by the single-axis tracker, in Wh/m2.
+         */
+        public double getSingleAxis() {
+            return singleAxis;
+        }
+
+        /**
+         * @return Returns the energy collected by the dual-axis tracker, in Wh/m2.
+         */
+        public double getDualAxis() {
+            return dualAxis;
+        }
+
+        /**
+         * @return Returns the single-axis energy over the fixed panel energy.
+         */
+        public double getSingleAxisGain() {
+            return singleAxis / fixed;
+        }
+
+        /**
+         * @return Returns the dual-axis energy over the fixed panel energy.
+         */
+        public double getDualAxisGain() {
+            return dualAxis / fixed;
+        }
+
+        /**
+         * @return Returns the number of sun positions evaluated.
+         */
+        public long getEvaluations() {
+            return evaluations;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.starla.telemetry;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads a stream of bits written by a {@link BitOutput}, up to 57 bits at a time from a single unaligned load. The
+ * array must hold 8 bytes past the last bit to read.
+ */
+final class BitInput {
+    private final ByteBuffer buffer;
+    private long bits;
+
+    BitInput(byte[] bytes) {
+        this.buffer = ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * @param offset The byte to read from.
+     */
+    void seek(int offset) {
+        bits = (long) offset << 3;
+    }
+
+    boolean readBit() {
+        return readBits(1) != 0;
+    }
+
+    /**
+     * @param count The number of bits, from 1 to 64.
+     * @return Returns the bits, right aligned.
+     */
+    long readBits(int count) {
+        if (count > 57) {
+            long high = readBits(count - 32);
+            return (high << 32) | readBits(32);
+        }
+        long word = buffer.getLong((int) (bits >>> 3));
+        long value = (word << (bits & 7)) >>> (64 - count);
+        bits += count;
+        return value;
+    }
+
+    long readVarLong() {
+        long zigzag = 0;
+        int shift = 0;
+        long group;
+        do {
+            group = readBits(8);
+            zigzag |= (group & 0x7F) << shift;
+            shift += 7;
+        } while ((group & 0x80) != 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    void alignToByte() {
+        bits = (bits + 7) & ~7L;
+    }
+}
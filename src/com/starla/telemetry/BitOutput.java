@@ -0,0 +1,72 @@
+package com.starla.telemetry;
+
+import java.util.Arrays;
+
+/**
+ * A growable stream of bits, most significant bit first.
+ */
+final class BitOutput {
+    private byte[] bytes = new byte[4096];
+    private long bits;
+
+    void writeBit(boolean bit) {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * @param value The bits, right aligned.
+     * @param count The number of bits, from 0 to 64.
+     */
+    void writeBits(long value, int count) {
+        ensureCapacity(count);
+        while (count > 0) {
+            int index = (int) (bits >>> 3);
+            int free = 8 - (int) (bits & 7);
+            int taken = Math.min(free, count);
+            int chunk = (int) (value >>> (count - taken)) & ((1 << taken) - 1);
+            bytes[index] |= chunk << (free - taken);
+            bits += taken;
+            count -= taken;
+        }
+    }
+
+    /**
+     * Writes a zigzag-encoded varint: seven bits per byte, from the least significant group, while the high bit of the
+     * byte is set.
+     */
+    void writeVarLong(long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            writeBits((zigzag & 0x7F) | 0x80, 8);
+            zigzag >>>= 7;
+        }
+        writeBits(zigzag, 8);
+    }
+
+    void alignToByte() {
+        bits = (bits + 7) & ~7L;
+    }
+
+    /**
+     * @return Returns the number of bytes holding the bits written.
+     */
+    int size() {
+        return (int) ((bits + 7) >>> 3);
+    }
+
+    byte[] array() {
+        return bytes;
+    }
+
+    void reset() {
+        Arrays.fill(bytes, 0, size(), (byte) 0);
+        bits = 0;
+    }
+
+    private void ensureCapacity(int count) {
+        long needed = (bits + count + 7) >>> 3;
+        if (needed > bytes.length) {
+            bytes = Arrays.copyOf(bytes, (int) Math.max(needed, 2L * bytes.length));
+        }
+    }
+}
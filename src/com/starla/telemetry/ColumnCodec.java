@@ -0,0 +1,131 @@
+package com.starla.telemetry;
+
+/**
+ * The encodings of the telemetry columns.
+ * <ul>
+ * <li>Times: the first one raw, the first delta as a varint, then the delta of the deltas in variable-length buckets,
+ * a single bit when the period holds.</li>
+ * <li>Values: the XOR of each double with the previous one, storing only the meaningful bits and reusing the previous
+ * leading and trailing zero counts when they fit (Gorilla, Pelkonen et al., 2015).</li>
+ * <li>Counters: the deltas as zigzag varints.</li>
+ * </ul>
+ */
+final class ColumnCodec {
+    private ColumnCodec() {
+    }
+
+    static void encodeTimes(long[] times, int rows, BitOutput out) {
+        out.writeBits(times[0], 64);
+        if (rows == 1) {
+            return;
+        }
+        long previousDelta = times[1] - times[0];
+        out.writeVarLong(previousDelta);
+        for (int i = 2; i < rows; i++) {
+            long delta = times[i] - times[i - 1];
+            long deltaOfDelta = delta - previousDelta;
+            if (deltaOfDelta == 0) {
+                out.writeBits(0b0, 1);
+            } else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+                out.writeBits(0b10, 2);
+                out.writeBits(deltaOfDelta + 63, 7);
+            } else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+                out.writeBits(0b110, 3);
+                out.writeBits(deltaOfDelta + 255, 9);
+            } else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+                out.writeBits(0b1110, 4);
+                out.writeBits(deltaOfDelta + 2047, 12);
+            } else {
+                out.writeBits(0b1111, 4);
+                out.writeBits(deltaOfDelta, 64);
+            }
+            previousDelta = delta;
+        }
+    }
+
+    static void decodeTimes(BitInput in, long[] times, int rows) {
+        times[0] = in.readBits(64);
+        if (rows == 1) {
+            return;
+        }
+        long delta = in.readVarLong();
+        times[1] = times[0] + delta;
+        for (int i = 2; i < rows; i++) {
+            if (in.readBit()) {
+                if (!in.readBit()) {
+                    delta += in.readBits(7) - 63;
+                } else if (!in.readBit()) {
+                    delta += in.readBits(9) - 255;
+                } else if (!in.readBit()) {
+                    delta += in.readBits(12) - 2047;
+                } else {
+                    delta += in.readBits(64);
+                }
+            }
+            times[i] = times[i - 1] + delta;
+        }
+    }
+
+    static void encodeValues(double[] values, int rows, BitOutput out) {
+        long previous = Double.doubleToRawLongBits(values[0]);
+        out.writeBits(previous, 64);
+        int leading = -1;
+        int trailing = 0;
+        for (int i = 1; i < rows; i++) {
+            long current = Double.doubleToRawLongBits(values[i]);
+            long xor = current ^ previous;
+            previous = current;
+            if (xor == 0) {
+                out.writeBits(0b0, 1);
+                continue;
+            }
+            int currentLeading = Math.min(31, Long.numberOfLeadingZeros(xor));
+            int currentTrailing = Long.numberOfTrailingZeros(xor);
+            if (leading >= 0 && currentLeading >= leading && currentTrailing >= trailing) {
+                out.writeBits(0b10, 2); // within the previous meaningful bits
+                out.writeBits(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                int meaningful = 64 - currentLeading - currentTrailing;
+                out.writeBits(0b11, 2);
+                out.writeBits(currentLeading, 5);
+                out.writeBits(meaningful - 1, 6);
+                out.writeBits(xor >>> currentTrailing, meaningful);
+                leading = currentLeading;
+                trailing = currentTrailing;
+            }
+        }
+    }
+
+    static void decodeValues(BitInput in, double[] values, int rows) {
+        long previous = in.readBits(64);
+        values[0] = Double.longBitsToDouble(previous);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < rows; i++) {
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.readBits(5);
+                    trailing = 64 - leading - ((int) in.readBits(6) + 1);
+                }
+                previous ^= in.readBits(64 - leading - trailing) << trailing;
+            }
+            values[i] = Double.longBitsToDouble(previous);
+        }
+    }
+
+    static void encodeCounters(long[] counters, int rows, BitOutput out) {
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            out.writeVarLong(counters[i] - previous);
+            previous = counters[i];
+        }
+    }
+
+    static void decodeCounters(BitInput in, long[] counters, int rows) {
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous += in.readVarLong();
+            counters[i] = previous;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.starla.telemetry;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Serves metrics over HTTP in the Prometheus text format, at {@code /metrics}.
+ * <p>
+ * A metric is a supplier that is only called when the endpoint is scraped, on the thread of the server. The suppliers
+ * are expected to read counters and gauges that their owners update without locks, such as volatile fields or atomic
+ * counters, so that a scrape never holds up the threads that do the work. A supplier that throws leaves its sample out
+ * of the scrape.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class MetricsServer {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+    private final List<Family> families = new CopyOnWriteArrayList<>();
+
+    /**
+     * Class constructor. The endpoint is served once {@link #start()} is called.
+     *
+     * @param address The address and port to listen on.
+     * @throws IOException If the address cannot be bound.
+     */
+    public MetricsServer(InetSocketAddress address) throws IOException {
+        server = HttpServer.create(address, 0);
+        server.createContext("/metrics", this::scrape);
+    }
+
+    /**
+     * Starts serving the endpoint on a thread of its own.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops serving the endpoint, waiting at most a second for the scrapes under way.
+     */
+    public void stop() {
+        server.stop(1);
+    }
+
+    /**
+     * Adds a counter, a value that only goes up, except when its owner starts over.
+     *
+     * @param name  The name of the metric, ending in _total by convention.
+     * @param help  The description of the metric.
+     * @param value Reads the value.
+     */
+    public void counter(String name, String help, DoubleSupplier value) {
+        add(Type.COUNTER, name, help, null, value);
+    }
+
+    /**
+     * Adds one labelled sample of a counter.
+     *
+     * @param name   The name of the metric, ending in _total by convention.
+     * @param help   The description of the metric, kept from the first sample of the metric.
+     * @param labels The labels of the sample, as in {@code task="servo"}.
+     * @param value  Reads the value.
+     */
+    public void counter(String name, String help, String labels, DoubleSupplier value) {
+        add(Type.COUNTER, name, help, labels, value);
+    }
+
+    /**
+     * Adds a gauge, a value that goes up and down.
+     *
+     * @param name  The name of the metric.
+     * @param help  The description of the metric.
+     * @param value Reads the value.
+     */
+    public void gauge(String name, String help, DoubleSupplier value) {
+        add(Type.GAUGE, name, help, null, value);
+    }
+
+    /**
+     * Adds one labelled sample of a gauge.
+     *
+     * @param name   The name of the metric.
+     * @param help   The description of the metric, kept from the first sample of the metric.
+     * @param labels The labels of the sample, as in {@code task="servo"}.
+     * @param value  Reads the value.
+     */
+    public void gauge(String name, String help, String labels, DoubleSupplier value) {
+        add(Type.GAUGE, name, help, labels, value);
+    }
+
+    private synchronized void add(Type type, String name, String help, String labels, DoubleSupplier value) {
+        for (Family family : families) {
+            if (family.name.equals(name)) {
+                if (family.type != type) {
+                    throw new IllegalArgumentException(name + " is already a " + family.type.text);
+                }
+                family.samples.add(new Sample(labels, value));
+                return;
+            }
+        }
+        Family family = new Family(type, name, help);
+        family.samples.add(new Sample(labels, value));
+        families.add(family);
+    }
+
+    private void scrape(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            StringBuilder text = new StringBuilder(4096);
+            for (Family family : families) {
+                family.append(text);
+            }
+            byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private enum Type {
+        COUNTER("counter"),
+        GAUGE("gauge");
+
+        private final String text;
+
+        Type(String text) {
+            this.text = text;
+        }
+    }
+
+    private static final class Family {
+        private final Type type;
+        private final String name;
+        private final String help;
+        private final List<Sample> samples = new CopyOnWriteArrayList<>();
+
+        private Family(Type type, String name, String help) {
+            this.type = type;
+            this.name = name;
+            this.help = help;
+        }
+
+        private void append(StringBuilder text) {
+            List<String> lines = new ArrayList<>(samples.size());
+            for (Sample sample : samples) {
+                double value;
+                try {
+                    value = sample.value.getAsDouble();
+                } catch (RuntimeException e) {
+                    continue; // the owner is not available, for instance between connections
+                }
+                StringBuilder line = new StringBuilder(name);
+                if (sample.labels != null) {
+                    line.append('{').append(sample.labels).append('}');
+                }
+                lines.add(line.append(' ').append(format(value)).append('\n').toString());
+            }
+            if (lines.isEmpty()) {
+                return;
+            }
+            text.append("# HELP ").append(name).append(' ').append(escape(help)).append('\n');
+            text.append("# TYPE ").append(name).append(' ').append(type.text).append('\n');
+            for (String line : lines) {
+                text.append(line);
+            }
+        }
+
+        private static String format(double value) {
+            if (Double.isNaN(value)) {
+                return "NaN";
+            }
+            if (Double.isInfinite(value)) {
+                return value > 0 ? "+Inf" : "-Inf";
+            }
+            if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+                return Long.toString((long) value);
+            }
+            return Double.toString(value);
+        }
+
+        private static String escape(String help) {
+            return help.replace("\\", "\\\\").replace("\n", "\\n");
+        }
+    }
+
+    private static final class Sample {
+        private final String labels;
+        private final DoubleSupplier value;
+
+        private Sample(String labels, DoubleSupplier value) {
+            this.labels = labels;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.starla.telemetry;
+
+import ioio.lib.api.AnalogFrameListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records every analog frame of the IOIO, raw, into a ring of memory-mapped segment files.
+ * <p>
+ * Each record holds the host time of the frame, the mask of the sampled pins and their 10-bit counts in ascending pin
+ * order. The segments are mapped once, when the capture is opened, so recording a frame on the protocol thread is a
+ * few absolute puts into a mapped buffer, and moving on to the next segment only rewrites its header. Once the ring
+ * is full the oldest segment is overwritten.
+ * <p>
+ * Every segment starts with a sparse index of the time of one record out of many, so that
+ * {@link #extract(Path, long, long, Visitor)} seeks to a time range instead of scanning the whole capture.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class RawCapture implements AnalogFrameListener {
+    private static final int MAGIC = 0x52415743; // "RAWC"
+    private static final int VERSION = 1;
+    private static final int SEGMENT_SIZE = 64 << 20; // bytes
+    private static final int INDEX_ENTRIES = 4096;
+    private static final int INDEX_ENTRY_SIZE = 12; // time and offset
+    // header: magic, version, sequence, end of the records, index entries
+    private static final int SEQUENCE = 8;
+    private static final int END = 16;
+    private static final int INDEX_COUNT = 20;
+    private static final int INDEX = 24;
+    private static final int DATA = INDEX + INDEX_ENTRIES * INDEX_ENTRY_SIZE;
+    private static final int RECORD_HEADER = 16; // time and pin mask
+    // a record out of this many is indexed, so that the index never fills up
+    private static final int INDEX_INTERVAL = ((SEGMENT_SIZE - DATA) / (RECORD_HEADER + 2) + INDEX_ENTRIES - 1) /
+            INDEX_ENTRIES;
+    private static final long FRAMES_PER_DAY = 86_400_000L; // at 1 kHz
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".raw";
+
+    private final MappedByteBuffer[] segments;
+    private final int[] order = new int[Long.SIZE];
+    private MappedByteBuffer segment;
+    private int slot;
+    private long sequence;
+    private int position;
+    private int records;
+    private long pinMask = -1;
+    private long frames;
+
+    /**
+     * Opens the capture, sized for the given number of days of frames, and continues after the newest segment already
+     * in the directory.
+     *
+     * @param directory The directory of the segment files.
+     * @param channels  The amount of analog inputs expected in each frame.
+     * @param days      The days of frames kept before the oldest are overwritten.
+     * @throws IOException
+     */
+    public RawCapture(Path directory, int channels, double days) throws IOException {
+        long bytes = (long) Math.ceil(days * FRAMES_PER_DAY) * (RECORD_HEADER + 2 * channels);
+        int count = (int) Math.max(2, (bytes + SEGMENT_SIZE - DATA - 1) / (SEGMENT_SIZE - DATA));
+        Files.createDirectories(directory);
+
+        segments = new MappedByteBuffer[count];
+        int newest = -1;
+        for (int i = 0; i < count; i++) {
+            try (FileChannel channel = FileChannel.open(directory.resolve(PREFIX + i + SUFFIX),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+            }
+            if (isSegment(segments[i]) && segments[i].getLong(SEQUENCE) >= sequence) {
+                sequence = segments[i].getLong(SEQUENCE);
+                newest = i;
+            }
+        }
+        slot = newest;
+        nextSegment();
+    }
+
+    @Override
+    public void frameReceived(long frame, int[] pins, int[] values, int numPins) {
+        long mask = 0;
+        for (int i = 0; i < numPins; i++) {
+            mask |= 1L << pins[i];
+        }
+        if (mask != pinMask) {
+            sortPins(pins, numPins);
+            pinMask = mask;
+        }
+
+        int size = RECORD_HEADER + 2 * numPins;
+        if (position + size > SEGMENT_SIZE) {
+            nextSegment();
+        }
+        MappedByteBuffer buffer = segment;
+        long time = System.currentTimeMillis();
+        int offset = position;
+        buffer.putLong(offset, time);
+        buffer.putLong(offset + 8, mask);
+        for (int i = 0; i < numPins; i++) {
+            buffer.putShort(offset + RECORD_HEADER + 2 * i, (short) values[order[i]]);
+        }
+        if (records % INDEX_INTERVAL == 0) {
+            int entry = INDEX + (records / INDEX_INTERVAL) * INDEX_ENTRY_SIZE;
+            buffer.putLong(entry, time);
+            buffer.putInt(entry + 8, offset);
+            buffer.putInt(INDEX_COUNT, records / INDEX_INTERVAL + 1);
+        }
+        records++;
+        position = offset + size;
+        buffer.putInt(END, position);
+        frames++;
+    }
+
+    /**
+     * Writes the mapped segments to the storage device.
+     */
+    public void force() {
+        for (MappedByteBuffer buffer : segments) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * @return Returns the number of frames recorded since the capture was opened.
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * @return Returns the number of segment files of the ring.
+     */
+    public int getSegments() {
+        return segments.length;
+    }
+
+    private void nextSegment() {
+        slot = (slot + 1) % segments.length;
+        segment = segments[slot];
+        segment.putInt(END, DATA);
+        segment.putInt(INDEX_COUNT, 0);
+        segment.putLong(SEQUENCE, ++sequence);
+        segment.putInt(4, VERSION);
+        segment.putInt(0, MAGIC);
+        position = DATA;
+        records = 0;
+    }
+
+    /**
+     * Sorts the positions of the pins in the frame by pin number, without allocating. The frame format only changes
+     * when an input is opened or closed.
+     */
+    private void sortPins(int[] pins, int numPins) {
+        for (int i = 0; i < numPins; i++) {
+            int j = i;
+            for (; j > 0 && pins[order[j - 1]] > pins[i]; j--) {
+                order[j] = order[j - 1];
+            }
+            order[j] = i;
+        }
+    }
+
+    private static boolean isSegment(ByteBuffer buffer) {
+        return buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION;
+    }
+
+    /**
+     * Reads the frames recorded within a time range, in the order they were recorded. The segments are reached through
+     * their first record and the frames within a segment through its index, so only the records near the range are
+     * read.
+     *
+     * @param directory The directory of the segment files.
+     * @param from      The first time, in milliseconds since 1970-01-01T00:00Z.
+     * @param to        The last time, in milliseconds since 1970-01-01T00:00Z.
+     * @param visitor   Receives the frames.
+     * @return Returns the number of frames read.
+     * @throws IOException
+     */
+    public static long extract(Path directory, long from, long to, Visitor visitor) throws IOException {
+        List<ByteBuffer> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    if (channel.size() < DATA) {
+                        continue;
+                    }
+                    ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    if (isSegment(buffer) && buffer.getInt(INDEX_COUNT) > 0) {
+                        segments.add(buffer);
+                    }
+                }
+            }
+        }
+        segments.sort((a, b) -> Long.compare(a.getLong(SEQUENCE), b.getLong(SEQUENCE)));
+
+        short[] counts = new short[Long.SIZE];
+        long count = 0;
+        for (int s = 0; s < segments.size(); s++) {
+            ByteBuffer buffer = segments.get(s);
+            if (buffer.getLong(INDEX) > to) {
+                break;
+            }
+            if (s + 1 < segments.size() && segments.get(s + 1).getLong(INDEX) <= from) {
+                continue; // the next segment starts before the range
+            }
+
+            // the last indexed record before the range
+            int low = 0;
+            int high = buffer.getInt(INDEX_COUNT) - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (buffer.getLong(INDEX + middle * INDEX_ENTRY_SIZE) < from) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+
+            int end = buffer.getInt(END);
+            for (int offset = buffer.getInt(INDEX + low * INDEX_ENTRY_SIZE + 8); offset < end; ) {
+                long time = buffer.getLong(offset);
+                long mask = buffer.getLong(offset + 8);
+                int numPins = Long.bitCount(mask);
+                if (time > to) {
+                    return count;
+                }
+                if (time >= from) {
+                    for (int i = 0; i < numPins; i++) {
+                        counts[i] = buffer.getShort(offset + RECORD_HEADER + 2 * i);
+                    }
+                    visitor.visit(time, mask, counts, numPins);
+                    count++;
+                }
+                offset += RECORD_HEADER + 2 * numPins;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Receives the frames read by {@link #extract(Path, long, long, Visitor)}.
+     */
+    public interface Visitor {
+        /**
+         * @param time    The host time of the frame, in milliseconds since 1970-01-01T00:00Z.
+         * @param pinMask The sampled pins, bit n set for pin n.
+         * @param counts  The 10-bit counts of the pins, in ascending pin order. The array is reused.
+         * @param numPins The number of counts.
+         */
+        void visit(long time, long pinMask, short[] counts, int numPins);
+    }
+}
@@ -0,0 +1,509 @@
+package com.starla.telemetry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+/**
+ * Streaming minute, hour and day summaries of a few series of readings: the count, minimum, maximum, mean and time
+ * integral of each series, in the local time zone.
+ * <p>
+ * Each reading updates the open bucket of every resolution in place. The boundaries of a bucket are only computed when
+ * one is crossed, so a reading costs a comparison per resolution and a handful of additions per series. A bucket is
+ * closed by the first reading past its end; it is then kept in memory until {@link #flush()} appends it, as a fixed
+ * size record, to the file of its resolution. {@link #query(Path, Resolution, long, long, Visitor)} finds the first
+ * record of a time range by binary search, so a year of daily or hourly summaries is a few hundred or thousand records,
+ * however many readings they stand for.
+ * <p>
+ * {@link #flush()} also saves the open buckets, which are resumed when the rollup is opened again. A bucket already in
+ * its file, or a reading before the open bucket, as after the clock is set back, is never written twice: the reading
+ * joins the open bucket instead.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class Rollup {
+    private static final int MAGIC = 0x524C5550; // "RLUP"
+    private static final int STATE_MAGIC = 0x524C5553; // "RLUS"
+    private static final int VERSION = 1;
+    private static final int RECORD_HEADER = 16; // start and end
+    private static final int SERIES_SIZE = 36; // count, minimum, maximum, sum and integral
+    private static final long MAX_GAP = 60_000L; // ms, longer gaps between readings, like outages, are not integrated
+    private static final double MILLIS_PER_HOUR = 3_600_000.0;
+    private static final String PREFIX = "rollup-";
+    private static final String SUFFIX = ".bin";
+    private static final String STATE = PREFIX + "open" + SUFFIX;
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+    private final Path directory;
+    private final String[] names;
+    private final ZoneId zone;
+    private final byte[] header;
+    private final int recordSize;
+    private final Bucket[] buckets;
+    private final long[] lastWritten; // the start of the last record of each file
+    private final ByteBuffer[] pending;
+    private long previousTime = Long.MIN_VALUE;
+
+    /**
+     * Opens the rollup, cuts off a record that was only partly written and resumes the open buckets saved by the last
+     * {@link #flush()}.
+     *
+     * @param directory The directory of the rollup files.
+     * @param names     The names of the series, in the order of the values of a reading.
+     * @param zone      The time zone of the minutes, hours and days.
+     * @throws IOException If a file cannot be read or holds other series.
+     */
+    public Rollup(Path directory, String[] names, ZoneId zone) throws IOException {
+        this.directory = directory;
+        this.names = names.clone();
+        this.zone = zone;
+        this.header = header(names);
+        this.recordSize = RECORD_HEADER + SERIES_SIZE * names.length;
+        this.buckets = new Bucket[RESOLUTIONS.length];
+        this.lastWritten = new long[RESOLUTIONS.length];
+        this.pending = new ByteBuffer[RESOLUTIONS.length];
+        Files.createDirectories(directory);
+        for (Resolution resolution : RESOLUTIONS) {
+            int r = resolution.ordinal();
+            buckets[r] = new Bucket(this.names);
+            lastWritten[r] = open(directory.resolve(resolution.fileName()));
+            pending[r] = ByteBuffer.allocate(4 * recordSize);
+        }
+        resume(directory.resolve(STATE));
+    }
+
+    /**
+     * Adds a reading to the open bucket of every resolution, closing the buckets it is past the end of. Values that are
+     * not a number are left out of their series.
+     *
+     * @param epochMillis The time of the reading, in milliseconds since 1970-01-01T00:00Z.
+     * @param values      One value per series. The integral of a series counts each value over the time since the
+     *                    previous reading, so a mean power over that time integrates exactly to its energy.
+     */
+    public void add(long epochMillis, double[] values) {
+        long elapsed = epochMillis - previousTime;
+        double hours = previousTime != Long.MIN_VALUE && elapsed > 0 && elapsed <= MAX_GAP ?
+                elapsed / MILLIS_PER_HOUR : 0;
+        for (Resolution resolution : RESOLUTIONS) {
+            Bucket bucket = buckets[resolution.ordinal()];
+            if (epochMillis >= bucket.end) {
+                roll(resolution, epochMillis);
+            }
+            bucket.add(values, hours);
+        }
+        previousTime = Math.max(previousTime, epochMillis);
+    }
+
+    /**
+     * Appends the closed buckets to their files and saves the open ones, replacing the state file atomically where the
+     * file system allows it.
+     *
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        for (Resolution resolution : RESOLUTIONS) {
+            ByteBuffer records = pending[resolution.ordinal()];
+            if (records.position() == 0) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(directory.resolve(resolution.fileName()),
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                records.flip();
+                try {
+                    while (records.hasRemaining()) {
+                        channel.write(records);
+                    }
+                } finally {
+                    records.compact(); // keeps what was not written, to be appended by the next flush
+                }
+            }
+        }
+
+        Path file = directory.resolve(STATE);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temporary)))) {
+            out.writeInt(STATE_MAGIC);
+            out.write(header);
+            out.writeLong(previousTime);
+            for (Bucket bucket : buckets) {
+                bucket.write(out);
+            }
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @param resolution
+     * @return Returns the open bucket of the resolution, which the next readings keep updating.
+     */
+    public Bucket getBucket(Resolution resolution) {
+        return buckets[resolution.ordinal()];
+    }
+
+    /**
+     * @return Returns the names of the series.
+     */
+    public String[] getNames() {
+        return names.clone();
+    }
+
+    /**
+     * Closes the open bucket of a resolution, if it has readings, and opens the one the time falls into.
+     */
+    private void roll(Resolution resolution, long epochMillis) {
+        int r = resolution.ordinal();
+        Bucket bucket = buckets[r];
+        if (bucket.readings > 0 && bucket.start > lastWritten[r]) {
+            ByteBuffer records = pending[r];
+            if (records.remaining() < recordSize) {
+                records = pending[r] = ByteBuffer.allocate(2 * records.capacity()).put((ByteBuffer) records.flip());
+            }
+            bucket.put(records);
+            lastWritten[r] = bucket.start;
+        }
+        ZonedDateTime start = Instant.ofEpochMilli(epochMillis).atZone(zone).truncatedTo(resolution.unit);
+        bucket.reset(start.toInstant().toEpochMilli(), start.plus(1, resolution.unit).toInstant().toEpochMilli());
+    }
+
+    /**
+     * Writes the header of a new file, or checks the header of an existing one and cuts off a partial record.
+     *
+     * @return Returns the start of the last record, or {@link Long#MIN_VALUE} if there is none.
+     */
+    private long open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            if (channel.size() == 0) {
+                channel.write(ByteBuffer.wrap(header));
+                return Long.MIN_VALUE;
+            }
+            ByteBuffer existing = ByteBuffer.allocate(header.length);
+            readFully(channel, existing, 0);
+            if (!Arrays.equals(existing.array(), header)) {
+                throw new IOException(file + " is not a rollup of the same series");
+            }
+            long records = (channel.size() - header.length) / recordSize;
+            channel.truncate(header.length + records * recordSize);
+            if (records == 0) {
+                return Long.MIN_VALUE;
+            }
+            ByteBuffer start = ByteBuffer.allocate(8);
+            readFully(channel, start, header.length + (records - 1) * recordSize);
+            return start.getLong(0);
+        }
+    }
+
+    private void resume(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            byte[] existing = new byte[header.length];
+            if (in.readInt() != STATE_MAGIC) {
+                throw new IOException(file + " does not hold open rollup buckets");
+            }
+            in.readFully(existing);
+            if (!Arrays.equals(existing, header)) {
+                throw new IOException(file + " is not a rollup of the same series");
+            }
+            previousTime = in.readLong();
+            for (Bucket bucket : buckets) {
+                bucket.read(in);
+            }
+        } catch (NoSuchFileException e) {
+            // nothing to resume
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return;
+            }
+        }
+    }
+
+    private static byte[] header(String[] names) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream stream = new DataOutputStream(bytes)) {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            TelemetryStore.writeNames(stream, names);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // not thrown by a byte array
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads the closed buckets of a resolution that overlap a time range, in time order.
+     *
+     * @param directory  The directory of the rollup files.
+     * @param resolution
+     * @param from       The first time, in milliseconds since 1970-01-01T00:00Z.
+     * @param to         The last time, in milliseconds since 1970-01-01T00:00Z.
+     * @param visitor    Receives the buckets.
+     * @return Returns the number of buckets read.
+     * @throws IOException If the file cannot be read or is not a rollup.
+     */
+    public static long query(Path directory, Resolution resolution, long from, long to, Visitor visitor)
+            throws IOException {
+        Path file = directory.resolve(resolution.fileName());
+        String[] names;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " is not a rollup");
+            }
+            names = TelemetryStore.readNames(in);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int offset = header(names).length;
+        int recordSize = RECORD_HEADER + SERIES_SIZE * names.length;
+        int records = (buffer.limit() - offset) / recordSize;
+
+        // the first record that ends after the start of the range
+        int low = 0;
+        int high = records;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (buffer.getLong(offset + middle * recordSize + 8) <= from) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        Bucket bucket = new Bucket(names);
+        long count = 0;
+        for (int i = low; i < records; i++) {
+            buffer.position(offset + i * recordSize);
+            bucket.get(buffer);
+            if (bucket.start > to) {
+                break;
+            }
+            visitor.visit(bucket);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * The resolutions of the buckets.
+     */
+    public enum Resolution {
+        MINUTE(ChronoUnit.MINUTES),
+        HOUR(ChronoUnit.HOURS),
+        DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Resolution(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        private String fileName() {
+            return PREFIX + name().toLowerCase() + SUFFIX;
+        }
+    }
+
+    /**
+     * The summary of the readings of each series within a minute, hour or day.
+     */
+    public static final class Bucket {
+        private final String[] names;
+        private long start = Long.MIN_VALUE;
+        private long end = Long.MIN_VALUE;
+        private long readings;
+        private final int[] count;
+        private final double[] min;
+        private final double[] max;
+        private final double[] sum;
+        private final double[] integral;
+
+        private Bucket(String[] names) {
+            int series = names.length;
+            this.names = names;
+            count = new int[series];
+            min = new double[series];
+            max = new double[series];
+            sum = new double[series];
+            integral = new double[series];
+            reset(Long.MIN_VALUE, Long.MIN_VALUE);
+        }
+
+        private void reset(long start, long end) {
+            this.start = start;
+            this.end = end;
+            readings = 0;
+            Arrays.fill(count, 0);
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+            Arrays.fill(sum, 0);
+            Arrays.fill(integral, 0);
+        }
+
+        private void add(double[] values, double hours) {
+            readings++;
+            for (int i = 0; i < count.length; i++) {
+                double value = values[i];
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                count[i]++;
+                if (value < min[i]) {
+                    min[i] = value;
+                }
+                if (value > max[i]) {
+                    max[i] = value;
+                }
+                sum[i] += value;
+                integral[i] += value * hours;
+            }
+        }
+
+        private void put(ByteBuffer buffer) {
+            buffer.putLong(start);
+            buffer.putLong(end);
+            for (int i = 0; i < count.length; i++) {
+                buffer.putInt(count[i]);
+                buffer.putDouble(min[i]);
+                buffer.putDouble(max[i]);
+                buffer.putDouble(sum[i]);
+                buffer.putDouble(integral[i]);
+            }
+        }
+
+        private void get(ByteBuffer buffer) {
+            start = buffer.getLong();
+            end = buffer.getLong();
+            for (int i = 0; i < count.length; i++) {
+                count[i] = buffer.getInt();
+                min[i] = buffer.getDouble();
+                max[i] = buffer.getDouble();
+                sum[i] = buffer.getDouble();
+                integral[i] = buffer.getDouble();
+            }
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeLong(start);
+            out.writeLong(end);
+            out.writeLong(readings);
+            for (int i = 0; i < count.length; i++) {
+                out.writeInt(count[i]);
+                out.writeDouble(min[i]);
+                out.writeDouble(max[i]);
+                out.writeDouble(sum[i]);
+                out.writeDouble(integral[i]);
+            }
+        }
+
+        private void read(DataInputStream in) throws IOException {
+            start = in.readLong();
+            end = in.readLong();
+            readings = in.readLong();
+            for (int i = 0; i < count.length; i++) {
+                count[i] = in.readInt();
+                min[i] = in.readDouble();
+                max[i] = in.readDouble();
+                sum[i] = in.readDouble();
+                integral[i] = in.readDouble();
+            }
+        }
+
+        /**
+         * @return Returns the start of the bucket, in milliseconds since 1970-01-01T00:00Z.
+         */
+        public long getStart() {
+            return start;
+        }
+
+        /**
+         * @return Returns the end of the bucket, excluded, in milliseconds since 1970-01-01T00:00Z.
+         */
+        public long getEnd() {
+            return end;
+        }
+
+        /**
+         * @param series The index of the series.
+         * @return Returns the number of readings of the series.
+         */
+        public int getCount(int series) {
+            return count[series];
+        }
+
+        /**
+         * @param series The index of the series.
+         * @return Returns the least reading of the series, or NaN if there is none.
+         */
+        public double getMin(int series) {
+            return count[series] > 0 ? min[series] : Double.NaN;
+        }
+
+        /**
+         * @param series The index of the series.
+         * @return Returns the greatest reading of the series, or NaN if there is none.
+         */
+        public double getMax(int series) {
+            return count[series] > 0 ? max[series] : Double.NaN;
+        }
+
+        /**
+         * @param series The index of the series.
+         * @return Returns the mean reading of the series, or NaN if there is none.
+         */
+        public double getMean(int series) {
+            return count[series] > 0 ? sum[series] / count[series] : Double.NaN;
+        }
+
+        /**
+         * @param series The index of the series.
+         * @return Returns the integral of the series over time, in its unit times hours: the energy in Wh of a power
+         * in W.
+         */
+        public double getIntegral(int series) {
+            return integral[series];
+        }
+
+        /**
+         * @return Returns the names of the series.
+         */
+        public String[] getNames() {
+            return names.clone();
+        }
+    }
+
+    /**
+     * Receives the buckets read by {@link #query(Path, Resolution, long, long, Visitor)}.
+     */
+    public interface Visitor {
+        /**
+         * @param bucket The bucket, reused after the call.
+         */
+        void visit(Bucket bucket);
+    }
+}
@@ -0,0 +1,178 @@
+package com.starla.telemetry;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Scans the rows written by a {@link TelemetryStore}.
+ * <p>
+ * Only the segments of the days of the scan are read, each with a single read, and only the blocks that overlap the
+ * scan are decoded, a whole column at a time into arrays that are reused from block to block.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class TelemetryReader {
+    private static final long DAY = 86_400_000L; // ms
+
+    private final Path directory;
+    private String[] valueNames = new String[0];
+    private String[] counterNames = new String[0];
+    private long[] times = new long[0];
+    private double[][] values = new double[0][];
+    private long[][] counters = new long[0][];
+
+    /**
+     * Class constructor.
+     *
+     * @param directory The directory of the segment files.
+     */
+    public TelemetryReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Reads the rows within a time range, in time order.
+     *
+     * @param from    The first time, in milliseconds since 1970-01-01T00:00Z.
+     * @param to      The last time, in milliseconds since 1970-01-01T00:00Z.
+     * @param visitor Receives the rows.
+     * @return Returns the number of rows read.
+     * @throws IOException If a segment cannot be read or is corrupt.
+     */
+    public long scan(long from, long to, Visitor visitor) throws IOException {
+        // a block belongs to the day of its first row, so the day before the scan may hold some of its rows
+        long first = Math.floorDiv(from, DAY) - 1;
+        long last = Math.floorDiv(to, DAY);
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                TelemetryStore.PREFIX + "*" + TelemetryStore.SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long day;
+                try {
+                    day = LocalDate.parse(name.substring(TelemetryStore.PREFIX.length(),
+                            name.length() - TelemetryStore.SUFFIX.length())).toEpochDay();
+                } catch (DateTimeParseException e) {
+                    continue; // not a segment
+                }
+                if (day >= first && day <= last) {
+                    segments.add(file);
+                }
+            }
+        }
+        Collections.sort(segments);
+
+        long count = 0;
+        for (Path segment : segments) {
+            count += scan(segment, from, to, visitor);
+        }
+        return count;
+    }
+
+    /**
+     * @return Returns the names of the value columns of the last segment scanned.
+     */
+    public String[] getValueNames() {
+        return valueNames.clone();
+    }
+
+    /**
+     * @return Returns the names of the counter columns of the last segment scanned.
+     */
+    public String[] getCounterNames() {
+        return counterNames.clone();
+    }
+
+    private long scan(Path segment, long from, long to, Visitor visitor) throws IOException {
+        byte[] bytes;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            int size = (int) channel.size();
+            bytes = new byte[size + 8]; // room for the last unaligned load of BitInput
+            ByteBuffer target = ByteBuffer.wrap(bytes, 0, size);
+            while (target.hasRemaining() && channel.read(target) >= 0) {
+                continue;
+            }
+            if (target.hasRemaining()) {
+                throw new IOException(segment + " is shorter than expected");
+            }
+        }
+        int size = bytes.length - 8;
+        ByteArrayInputStream input = new ByteArrayInputStream(bytes, 0, size);
+        DataInputStream header = new DataInputStream(input);
+        if (header.readInt() != TelemetryStore.MAGIC || header.readInt() != TelemetryStore.VERSION) {
+            throw new IOException(segment + " is not a telemetry segment");
+        }
+        valueNames = TelemetryStore.readNames(header);
+        counterNames = TelemetryStore.readNames(header);
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        BitInput in = new BitInput(bytes);
+        long count = 0;
+        for (int offset = size - input.available(); offset + TelemetryStore.BLOCK_HEADER <= size; ) {
+            int rows = buffer.getInt(offset + 4);
+            long firstTime = buffer.getLong(offset + 8);
+            long lastTime = buffer.getLong(offset + 16);
+            int length = buffer.getInt(offset + 24);
+            if (buffer.getInt(offset) != TelemetryStore.BLOCK_MAGIC || rows <= 0 || length < 0 ||
+                    offset + TelemetryStore.BLOCK_HEADER + length > size) {
+                break; // a block cut off by a crash, dropped when the segment is appended to again
+            }
+            if (firstTime <= to && lastTime >= from) {
+                in.seek(offset + TelemetryStore.BLOCK_HEADER);
+                decode(in, rows);
+                for (int i = 0; i < rows; i++) {
+                    if (times[i] >= from && times[i] <= to) {
+                        visitor.visit(times[i], values, counters, i);
+                        count++;
+                    }
+                }
+            }
+            offset += TelemetryStore.BLOCK_HEADER + length;
+        }
+        return count;
+    }
+
+    private void decode(BitInput in, int rows) {
+        if (times.length < rows || values.length != valueNames.length || counters.length != counterNames.length) {
+            int capacity = Math.max(rows, times.length);
+            times = new long[capacity];
+            values = new double[valueNames.length][capacity];
+            counters = new long[counterNames.length][capacity];
+        }
+        ColumnCodec.decodeTimes(in, times, rows);
+        in.alignToByte();
+        for (double[] column : values) {
+            ColumnCodec.decodeValues(in, column, rows);
+            in.alignToByte();
+        }
+        for (long[] column : counters) {
+            ColumnCodec.decodeCounters(in, column, rows);
+            in.alignToByte();
+        }
+    }
+
+    /**
+     * Receives the rows read by {@link #scan(long, long, Visitor)}.
+     */
+    public interface Visitor {
+        /**
+         * @param time     Milliseconds since 1970-01-01T00:00Z.
+         * @param values   The value columns, read as values[column][row].
+         * @param counters The counter columns, read as counters[column][row].
+         * @param row      The row within the columns. The columns are reused after the call.
+         */
+        void visit(long time, double[][] values, long[][] counters, int row);
+    }
+}
@@ -0,0 +1,227 @@
+package com.starla.telemetry;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * An append-only time-series store for the readings of the tracker.
+ * <p>
+ * The rows are kept in memory, column by column, until a block is full or {@link #flush()} is called. The block is
+ * then encoded column by column (see {@link ColumnCodec}) and appended to the segment file of the UT day of its first
+ * row. Each block starts with its time range, so that {@link TelemetryReader} skips the blocks outside of a scan.
+ * <p>
+ * A block that was only partly written, for instance by a crash, is cut off the segment when it is opened again.
+ * <p>
+ * A row before the previous one, as after the clock is set back, is stored at the time of the previous row, so the
+ * rows stay in time order for {@link TelemetryReader}.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class TelemetryStore {
+    static final int MAGIC = 0x544C4D53; // "TLMS"
+    static final int VERSION = 1;
+    static final int BLOCK_MAGIC = 0x424C4B31; // "BLK1"
+    static final int BLOCK_HEADER = 28; // magic, rows, first and last time, length
+    static final String PREFIX = "telemetry-";
+    static final String SUFFIX = ".tsdb";
+
+    private final Path directory;
+    private final byte[] header;
+    private final long[] times;
+    private final double[][] values;
+    private final long[][] counters;
+    private final BitOutput out = new BitOutput();
+    private Path segment;
+    private long lastTime = Long.MIN_VALUE;
+    private int rows;
+    private long blocks;
+
+    /**
+     * Class constructor.
+     *
+     * @param directory    The directory of the segment files.
+     * @param valueNames   The names of the floating point columns.
+     * @param counterNames The names of the integer columns, best suited to counters.
+     * @param blockRows    The amount of rows per block.
+     */
+    public TelemetryStore(Path directory, String[] valueNames, String[] counterNames, int blockRows) {
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException("A block needs at least one row");
+        }
+        this.directory = directory;
+        this.header = header(valueNames, counterNames);
+        this.times = new long[blockRows];
+        this.values = new double[valueNames.length][blockRows];
+        this.counters = new long[counterNames.length][blockRows];
+    }
+
+    /**
+     * Adds a row, and writes the block once it is full. A full block that could not be written is kept, and written
+     * again before the next row is added; while that fails, the rows are refused with the error.
+     *
+     * @param time     Milliseconds since 1970-01-01T00:00Z.
+     * @param values   One value per value column.
+     * @param counters One value per counter column.
+     * @throws IOException If the block cannot be written.
+     */
+    public void append(long time, double[] values, long[] counters) throws IOException {
+        if (rows == times.length) {
+            flush();
+        }
+        lastTime = Math.max(lastTime, time);
+        times[rows] = lastTime;
+        for (int i = 0; i < this.values.length; i++) {
+            this.values[i][rows] = values[i];
+        }
+        for (int i = 0; i < this.counters.length; i++) {
+            this.counters[i][rows] = counters[i];
+        }
+        if (++rows == times.length) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the rows added since the last block, if any, as a block of their own.
+     *
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        out.reset();
+        ColumnCodec.encodeTimes(times, rows, out);
+        out.alignToByte();
+        for (double[] column : values) {
+            ColumnCodec.encodeValues(column, rows, out);
+            out.alignToByte();
+        }
+        for (long[] column : counters) {
+            ColumnCodec.encodeCounters(column, rows, out);
+            out.alignToByte();
+        }
+
+        Path file = directory.resolve(PREFIX + LocalDate.ofEpochDay(Math.floorDiv(times[0], 86_400_000L)) + SUFFIX);
+        if (!file.equals(segment)) {
+            open(file);
+        }
+        try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.APPEND)))) {
+            stream.writeInt(BLOCK_MAGIC);
+            stream.writeInt(rows);
+            stream.writeLong(times[0]);
+            stream.writeLong(times[rows - 1]);
+            stream.writeInt(out.size());
+            stream.write(out.array(), 0, out.size());
+        } catch (IOException e) {
+            segment = null; // opened again before the retry, which cuts off what was written of the block
+            throw e;
+        }
+        rows = 0;
+        blocks++;
+    }
+
+    /**
+     * @return Returns the number of blocks written.
+     */
+    public long getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * @return Returns the number of rows waiting for the next block.
+     */
+    public int getPendingRows() {
+        return rows;
+    }
+
+    /**
+     * Writes the header of a new segment, or checks the header of an existing one and cuts off a partial block.
+     */
+    private void open(Path file) throws IOException {
+        Files.createDirectories(directory);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            if (channel.size() == 0) {
+                channel.write(ByteBuffer.wrap(header));
+            } else {
+                ByteBuffer existing = ByteBuffer.allocate(header.length);
+                readFully(channel, existing, 0);
+                if (!Arrays.equals(existing.array(), header)) {
+                    throw new IOException(file + " is not a segment of the same columns");
+                }
+                channel.truncate(validEnd(channel, header.length));
+            }
+        }
+        segment = file;
+    }
+
+    /**
+     * @return Returns the offset past the last complete block of the segment.
+     */
+    private static long validEnd(FileChannel channel, long offset) throws IOException {
+        long size = channel.size();
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER);
+        while (offset + BLOCK_HEADER <= size) {
+            block.clear();
+            readFully(channel, block, offset);
+            int length = block.getInt(24);
+            if (block.getInt(0) != BLOCK_MAGIC || length < 0 || offset + BLOCK_HEADER + length > size) {
+                break;
+            }
+            offset += BLOCK_HEADER + length;
+        }
+        return offset;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return;
+            }
+        }
+    }
+
+    private static byte[] header(String[] valueNames, String[] counterNames) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream stream = new DataOutputStream(bytes)) {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            writeNames(stream, valueNames);
+            writeNames(stream, counterNames);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // not thrown by a byte array
+        }
+        return bytes.toByteArray();
+    }
+
+    static void writeNames(DataOutputStream stream, String[] names) throws IOException {
+        stream.writeInt(names.length);
+        for (String name : names) {
+            stream.writeUTF(name);
+        }
+    }
+
+    static String[] readNames(DataInputStream stream) throws IOException {
+        int count = stream.readInt();
+        if (count < 0 || count > 1024) {
+            throw new IOException("Corrupt column names");
+        }
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = stream.readUTF();
+        }
+        return names;
+    }
+}
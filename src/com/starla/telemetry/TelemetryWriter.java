@@ -0,0 +1,389 @@
+package com.starla.telemetry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes telemetry readings to a stream on a thread of its own, so that a slow terminal or pipe never stalls the
+ * thread that publishes them.
+ * <p>
+ * A reading is a time and a fixed number of values and counters. {@link #publish(long, double[], long[])} copies it
+ * into a slot of a preallocated ring, which a single thread publishes to and the writer thread drains, without locks.
+ * The writer formats every reading waiting in the ring into one buffer and writes and flushes the buffer once. The
+ * formatting reuses its buffers and caches the date and hour of the times, so it barely allocates.
+ * <p>
+ * When the ring is full, the reading is either dropped and counted, or the publisher waits for a free slot, depending
+ * on the {@link Policy}.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class TelemetryWriter {
+    private static final int MAGIC = 0x544C4D57; // "TLMW"
+    private static final int VERSION = 1;
+    private static final long IDLE_WAIT = 100_000_000L; // ns, the writer checks for readings at least this often
+    private static final long FULL_WAIT = 1_000_000L; // ns
+
+    private final OutputStream out;
+    private final Format format;
+    private final Policy policy;
+    private final String[] valueNames;
+    private final String[] counterNames;
+    private final int capacity;
+    private final long[] times;
+    private final double[] values;
+    private final long[] counters;
+    private final ZoneId zone;
+    private final Thread writer;
+
+    private volatile long published;
+    private volatile long consumed;
+    private volatile boolean running;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile IOException error;
+
+    // owned by the writer thread
+    private final StringBuilder text = new StringBuilder(256);
+    private byte[] bytes = new byte[4096];
+    private int length;
+    private long hourStart = Long.MAX_VALUE;
+    private long hourEnd = Long.MIN_VALUE;
+    private String hourPrefix;
+    private String hourSuffix;
+
+    /**
+     * Class constructor. The writer thread is started by {@link #start()}.
+     *
+     * @param out          The sink of the readings.
+     * @param format       The format of the readings.
+     * @param policy       What to do when the ring is full.
+     * @param capacity     The amount of readings the ring holds.
+     * @param valueNames   The names of the values of a reading.
+     * @param counterNames The names of the counters of a reading.
+     * @param zone         The time zone the times are written in, by the text formats.
+     */
+    public TelemetryWriter(OutputStream out, Format format, Policy policy, int capacity, String[] valueNames,
+                           String[] counterNames, ZoneId zone) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The ring needs at least one slot");
+        }
+        this.out = out;
+        this.format = format;
+        this.policy = policy;
+        this.capacity = capacity;
+        this.valueNames = valueNames.clone();
+        this.counterNames = counterNames.clone();
+        this.times = new long[capacity];
+        this.values = new double[capacity * valueNames.length];
+        this.counters = new long[capacity * counterNames.length];
+        this.zone = zone;
+        this.writer = new Thread(this::drain, "TelemetryWriter");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Starts the writer thread, which writes the header of the format first.
+     */
+    public void start() {
+        running = true;
+        writer.start();
+    }
+
+    /**
+     * Stops the writer thread once it has written the readings already published.
+     *
+     * @throws InterruptedException
+     */
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join();
+    }
+
+    /**
+     * Copies a reading into the ring. Only one thread may publish.
+     *
+     * @param time     Milliseconds since 1970-01-01T00:00Z.
+     * @param values   One value per value name.
+     * @param counters One value per counter name.
+     * @return Returns false if the ring was full and the reading was dropped.
+     * @throws InterruptedException If interrupted while waiting for a free slot.
+     */
+    public boolean publish(long time, double[] values, long[] counters) throws InterruptedException {
+        long slot = published;
+        while (slot - consumed >= capacity) {
+            if (policy == Policy.DROP || !running) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(this, FULL_WAIT);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        int index = (int) (slot % capacity);
+        times[index] = time;
+        System.arraycopy(values, 0, this.values, index * valueNames.length, valueNames.length);
+        System.arraycopy(counters, 0, this.counters, index * counterNames.length, counterNames.length);
+        published = slot + 1;
+        LockSupport.unpark(writer);
+        return true;
+    }
+
+    /**
+     * @return Returns the number of readings dropped because the ring was full.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return Returns the number of readings written to the sink.
+     */
+    public long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * @return Returns the number of writes to the sink, each with all the readings waiting at the time.
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * @return Returns the last error of the sink, or null. The readings of a batch that failed count as dropped.
+     */
+    public IOException getError() {
+        return error;
+    }
+
+    private void drain() {
+        length = 0;
+        format.header(this);
+        write();
+        while (running || consumed != published) {
+            long end = published;
+            long start = consumed;
+            if (start == end) {
+                LockSupport.parkNanos(this, IDLE_WAIT);
+                continue;
+            }
+            length = 0;
+            for (long slot = start; slot < end; slot++) {
+                format.reading(this, (int) (slot % capacity));
+            }
+            consumed = end; // the slots are free once formatted
+            if (write()) {
+                written.addAndGet(end - start);
+            } else {
+                dropped.addAndGet(end - start);
+            }
+        }
+    }
+
+    private boolean write() {
+        if (length == 0) {
+            return true;
+        }
+        try {
+            out.write(bytes, 0, length);
+            out.flush();
+            batches.incrementAndGet();
+            return true;
+        } catch (IOException e) {
+            error = e;
+            return false;
+        }
+    }
+
+    private void appendText(char separator, int index) {
+        text.setLength(0);
+        appendTime(times[index]);
+        for (int i = 0; i < valueNames.length; i++) {
+            text.append(separator);
+            appendValue(values[index * valueNames.length + i]);
+        }
+        for (int i = 0; i < counterNames.length; i++) {
+            text.append(separator).append(counters[index * counterNames.length + i]);
+        }
+        text.append('\n');
+        appendBytes(text);
+    }
+
+    private void appendNames(char separator) {
+        text.setLength(0);
+        text.append("time");
+        for (String name : valueNames) {
+            text.append(separator).append(name);
+        }
+        for (String name : counterNames) {
+            text.append(separator).append(name);
+        }
+        text.append('\n');
+        byte[] encoded = text.toString().getBytes(StandardCharsets.UTF_8); // only once, the names may not be ASCII
+        ensureCapacity(encoded.length);
+        System.arraycopy(encoded, 0, bytes, length, encoded.length);
+        length += encoded.length;
+    }
+
+    /**
+     * Appends the time as an ISO-8601 local date-time with offset, to the millisecond. The date, hour and offset are
+     * formatted once per hour.
+     */
+    private void appendTime(long epochMillis) {
+        if (epochMillis < hourStart || epochMillis >= hourEnd) {
+            ZonedDateTime hour = Instant.ofEpochMilli(epochMillis).atZone(zone).truncatedTo(ChronoUnit.HOURS);
+            hourStart = hour.toInstant().toEpochMilli();
+            hourEnd = hour.plusHours(1).toInstant().toEpochMilli();
+            hourPrefix = hour.toLocalDateTime().toString().substring(0, 14); // yyyy-MM-ddTHH:
+            hourSuffix = hour.getOffset().toString();
+        }
+        int millis = (int) (epochMillis - hourStart);
+        text.append(hourPrefix);
+        appendDigits(millis / 60_000, 2);
+        text.append(':');
+        appendDigits(millis / 1000 % 60, 2);
+        text.append('.');
+        appendDigits(millis % 1000, 3);
+        text.append(hourSuffix);
+    }
+
+    /**
+     * Appends the value rounded to two decimals, like the console always did.
+     */
+    private void appendValue(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= Long.MAX_VALUE / 100) {
+            text.append(value);
+            return;
+        }
+        long hundredths = Math.round(value * 100.0);
+        if (hundredths < 0) {
+            text.append('-');
+            hundredths = -hundredths;
+        }
+        text.append(hundredths / 100).append('.');
+        appendDigits((int) (hundredths % 100), 2);
+    }
+
+    private void appendDigits(int value, int digits) {
+        for (int divisor = digits == 3 ? 100 : 10; divisor > 0; divisor /= 10) {
+            text.append((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    private void appendBytes(CharSequence chars) {
+        ensureCapacity(chars.length());
+        for (int i = 0; i < chars.length(); i++) {
+            bytes[length++] = (byte) chars.charAt(i); // the times and numbers are ASCII
+        }
+    }
+
+    private void appendInt(int value) {
+        ensureCapacity(4);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            bytes[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void appendLong(long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            bytes[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void ensureCapacity(int count) {
+        if (length + count > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(length + count, 2 * bytes.length));
+        }
+    }
+
+    /**
+     * The formats of the readings.
+     */
+    public enum Format {
+        /**
+         * A line of names, then a line per reading, tab separated.
+         */
+        TSV {
+            @Override
+            void header(TelemetryWriter writer) {
+                writer.appendNames('\t');
+            }
+
+            @Override
+            void reading(TelemetryWriter writer, int index) {
+                writer.appendText('\t', index);
+            }
+        },
+        /**
+         * A line of names, then a line per reading, comma separated.
+         */
+        CSV {
+            @Override
+            void header(TelemetryWriter writer) {
+                writer.appendNames(',');
+            }
+
+            @Override
+            void reading(TelemetryWriter writer, int index) {
+                writer.appendText(',', index);
+            }
+        },
+        /**
+         * A magic number, the version and the numbers of values and counters, then per reading the time, the values
+         * and the counters, all big-endian.
+         */
+        BINARY {
+            @Override
+            void header(TelemetryWriter writer) {
+                writer.appendInt(MAGIC);
+                writer.appendInt(VERSION);
+                writer.appendInt(writer.valueNames.length);
+                writer.appendInt(writer.counterNames.length);
+            }
+
+            @Override
+            void reading(TelemetryWriter writer, int index) {
+                writer.appendLong(writer.times[index]);
+                int values = writer.valueNames.length;
+                for (int i = 0; i < values; i++) {
+                    writer.appendLong(Double.doubleToRawLongBits(writer.values[index * values + i]));
+                }
+                int counters = writer.counterNames.length;
+                for (int i = 0; i < counters; i++) {
+                    writer.appendLong(writer.counters[index * counters + i]);
+                }
+            }
+        };
+
+        abstract void header(TelemetryWriter writer);
+
+        abstract void reading(TelemetryWriter writer, int index);
+    }
+
+    /**
+     * What {@link #publish(long, double[], long[])} does when the ring is full.
+     */
+    public enum Policy {
+        /**
+         * Drop the reading and count it.
+         */
+        DROP,
+        /**
+         * Wait until the writer frees a slot.
+         */
+        BLOCK
+    }
+}
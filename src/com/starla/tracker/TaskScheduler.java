@@ -0,0 +1,182 @@
+package com.starla.tracker;
+
+import ioio.lib.api.exception.ConnectionLostException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs periodic tasks at fixed rates on the thread of a {@link ioio.lib.util.BaseIOIOLooper}.
+ * <p>
+ * Every task is released at multiples of its own period from the moment it was scheduled, no matter how long the
+ * previous run took, so the work does not make the period drift. {@link #runNext()} sleeps until the earliest release,
+ * runs that task, and returns, so it is meant to be called from {@code loop()}. A task that is released a whole period
+ * late counts as an overrun, and the releases it missed are skipped instead of being run in a burst.
+ *
+ * @version 1, 17/10/2026
+ */
+public final class TaskScheduler {
+    private final List<Task> tasks = new ArrayList<>();
+
+    /**
+     * Adds a task, released for the first time right away.
+     *
+     * @param name         The name shown in the statistics.
+     * @param periodMillis The period in milliseconds.
+     * @param job          The work to run.
+     * @return Returns the task, which keeps its statistics.
+     */
+    public Task schedule(String name, long periodMillis, Job job) {
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("The period must be positive");
+        }
+        Task task = new Task(name, periodMillis * 1_000_000L, job, System.nanoTime());
+        tasks.add(task);
+        return task;
+    }
+
+    /**
+     * Waits for the earliest release and runs that task.
+     *
+     * @throws ConnectionLostException
+     * @throws InterruptedException
+     */
+    public void runNext() throws ConnectionLostException, InterruptedException {
+        if (tasks.isEmpty()) {
+            throw new IllegalStateException("No task has been scheduled");
+        }
+        Task next = tasks.get(0);
+        for (Task task : tasks) {
+            if (task.release - next.release < 0) {
+                next = task;
+            }
+        }
+
+        long wait = next.release - System.nanoTime();
+        if (wait > 0) {
+            Thread.sleep(wait / 1_000_000L, (int) (wait % 1_000_000L));
+        }
+        next.run();
+    }
+
+    /**
+     * @return Returns the scheduled tasks, in the order they were added.
+     */
+    public List<Task> getTasks() {
+        return Collections.unmodifiableList(tasks);
+    }
+
+    /**
+     * The work of a periodic task.
+     */
+    public interface Job {
+        /**
+         * @throws ConnectionLostException
+         * @throws InterruptedException
+         */
+        void run() throws ConnectionLostException, InterruptedException;
+    }
+
+    /**
+     * A periodic task and its statistics. The latency is the time from the release to the start of the run.
+     * <p>
+     * The statistics are only written by the thread that runs the task, and are volatile, so they may be read from
+     * any other thread without holding it up.
+     */
+    public static final class Task {
+        private final String name;
+        private final long period; // ns
+        private final Job job;
+        private long release; // ns
+        private volatile long runs;
+        private volatile long overruns;
+        private volatile long latencySum;
+        private volatile long latencyMax;
+        private volatile long durationSum;
+        private volatile long durationMax;
+
+        private Task(String name, long period, Job job, long release) {
+            this.name = name;
+            this.period = period;
+            this.job = job;
+            this.release = release;
+        }
+
+        private void run() throws ConnectionLostException, InterruptedException {
+            long start = System.nanoTime();
+            job.run();
+            long end = System.nanoTime();
+
+            long latency = Math.max(0, start - release);
+            runs++;
+            latencySum += latency;
+            latencyMax = Math.max(latencyMax, latency);
+            durationSum += end - start;
+            durationMax = Math.max(durationMax, end - start);
+
+            release += period;
+            if (end - release >= period) { // a whole period late, the missed releases are skipped
+                long missed = (end - release) / period;
+                overruns += missed;
+                release += missed * period;
+            }
+        }
+
+        /**
+         * @return Returns the name of the task.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return Returns the period in milliseconds.
+         */
+        public long getPeriod() {
+            return period / 1_000_000L;
+        }
+
+        /**
+         * @return Returns the number of runs.
+         */
+        public long getRuns() {
+            return runs;
+        }
+
+        /**
+         * @return Returns the number of releases skipped because they were a whole period late.
+         */
+        public long getOverruns() {
+            return overruns;
+        }
+
+        /**
+         * @return Returns the mean latency in milliseconds.
+         */
+        public double getMeanLatency() {
+            return runs == 0 ? 0 : latencySum / 1e6 / runs;
+        }
+
+        /**
+         * @return Returns the maximum latency in milliseconds.
+         */
+        public double getMaxLatency() {
+            return latencyMax / 1e6;
+        }
+
+        /**
+         * @return Returns the mean run time in milliseconds.
+         */
+        public double getMeanDuration() {
+            return runs == 0 ? 0 : durationSum / 1e6 / runs;
+        }
+
+        /**
+         * @return Returns the maximum run time in milliseconds.
+         */
+        public double getMaxDuration() {
+            return durationMax / 1e6;
+        }
+    }
+}
@@ -1,12 +1,23 @@
 package com.starla.tracker;
 
 import com.starla.motor.Pan;
+import com.starla.motor.ServoController;
+import com.starla.motor.ServoTrajectory;
 import com.starla.motor.Tilt;
+import com.starla.sensor.AnalogAcquisition;
+import com.starla.sensor.EnergyMeter;
+import com.starla.sensor.PowerMeter;
 import com.starla.sensor.ammeter.ACS712;
 import com.starla.sensor.uv.GUVA_S12SD;
 import com.starla.sensor.voltmeter.IOIOVoltmeter;
 import com.starla.sensor.weather.BMP180;
-import com.starla.position.*;
+import com.starla.sensor.weather.BMP180Sampler;
+import com.starla.position.SunPathTable;
+import com.starla.telemetry.MetricsServer;
+import com.starla.telemetry.RawCapture;
+import com.starla.telemetry.Rollup;
+import com.starla.telemetry.TelemetryStore;
+import com.starla.telemetry.TelemetryWriter;
 import ioio.lib.api.*;
 import ioio.lib.api.exception.ConnectionLostException;
 import ioio.lib.util.BaseIOIOLooper;
@@ -14,8 +25,16 @@ import ioio.lib.util.IOIOLooper;
 import ioio.lib.util.pc.IOIOConsoleApp;
 
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Guillermo Guzm&aacute;n S&aacute;nchez
@@ -24,6 +43,7 @@ import java.time.ZonedDateTime;
 public final class Tracker extends IOIOConsoleApp {
     // parameters related with the bmp_180 (pressure and temperature) sensor
     private final int TWI_MODULE = 2;
+    private final int WEATHER_INTERVAL = 1000; // ms
     // parameters related with the acs712 sensor (ammeter)
     private final int AMMETER_SP_PIN = 31;
     private final int AMMETER_BA_PIN = 42;
@@ -35,16 +55,67 @@ public final class Tracker extends IOIOConsoleApp {
     private final int SERVO_PWM_FREQUENCY = 100;
     private final int SERVO_PAN_PIN = 10;
     private final int SERVO_TILT_PIN = 11;
+    private final boolean SERVO_TRAJECTORY = true; // timed by the IOIO's sequencer instead of the loop
+    private final double SERVO_DEADBAND = 0.5; // degrees
+    private final double SERVO_MAX_SPEED = 0.5; // degrees per second, at most 5 degrees per servo period
     // parameters related with the location
     private final double LONGITUDE = Math.toRadians(284.78); // 75.22°O = -75.22° = 284.78°
     private final double LATITUDE = Math.toRadians(4.44);
     private final double ALTITUDE = 1111.0;
+    private final double SUN_PATH_TOLERANCE = Math.toRadians(0.01);
+    private final String SUN_PATH_FILE = "sunpath-%d.bin"; // per UT day
+    // periods of the tasks run by the loop
+    private final long ELECTRICAL_PERIOD = 100; // ms, one window of the five channels
+    private final long WEATHER_PERIOD = 5000; // ms
+    private final long SERVO_PERIOD = 10_000; // ms
+    private final long TELEMETRY_PERIOD = 1000; // ms
+    private final long CHECKPOINT_PERIOD = 60_000; // ms
+    // energy counters, kept across reconnects and restarts
+    private final Path SOLAR_PANEL_ENERGY_FILE = Paths.get("energy-sp.bin");
+    private final Path BATTERY_ENERGY_FILE = Paths.get("energy-ba.bin");
+    // raw recording of every analog frame
+    private final Path CAPTURE_DIRECTORY = Paths.get("capture");
+    private final double CAPTURE_DAYS = 2;
+    // history of the telemetry
+    private final Path TELEMETRY_DIRECTORY = Paths.get("telemetry");
+    private final int TELEMETRY_BLOCK_ROWS = 3600;
+    // minute, hour and day summaries of the telemetry
+    private final Path ROLLUP_DIRECTORY = Paths.get("rollup");
+    // metrics endpoint, in the Prometheus text format
+    private final InetSocketAddress METRICS_ADDRESS = new InetSocketAddress(InetAddress.getLoopbackAddress(), 9105);
+    private final String[] TASK_NAMES = {"weather", "electrical", "servo", "telemetry", "checkpoint"}; // as scheduled
+    private final String[] ANALOG_INPUT_NAMES = {"ammeter_sp", "voltmeter_sp", "ammeter_ba", "voltmeter_ba", "uv"};
+    // console output, written by a thread of its own
+    private final TelemetryWriter.Format CONSOLE_FORMAT = TelemetryWriter.Format.TSV;
+    private final int CONSOLE_RING = 64; // readings
+    private final String[] NO_COUNTER_NAMES = new String[0];
+    private final long[] NO_COUNTERS = new long[0];
 
     private DigitalOutput led_;
     private boolean ledOn_ = true;
     private TwiMaster twi;
 
     private final int BUFFER_SIZE = 1000;
+    private final int ELECTRICAL_FRAMES = 100; // samples per channel and estimation, at 1 kHz
+    private AnalogAcquisition electrical;
+    private PowerMeter solarPanelMeter;
+    private PowerMeter batteryMeter;
+    private EnergyMeter solarPanelEnergy;
+    private EnergyMeter batteryEnergy;
+    private RawCapture rawCapture;
+    private final TelemetryStore telemetryStore = new TelemetryStore(TELEMETRY_DIRECTORY, new String[]{"temperature",
+            "pressure", "zenith", "azimuth", "input", "output", "uvIndex", "uvaPower"}, new String[]{"frame",
+            "overruns"}, TELEMETRY_BLOCK_ROWS);
+    private final double[] telemetryValues = new double[8];
+    private final long[] telemetryCounters = new long[2];
+    private final TelemetryWriter telemetryWriter = new TelemetryWriter(System.out, CONSOLE_FORMAT,
+            TelemetryWriter.Policy.DROP, CONSOLE_RING, new String[]{"T.(°C)", "P.(atm)", "Zenith°", "Azimuth°",
+            "Input(W)", "Output(W)", "UVIndex", "UVAPower(W/m2)", "Input(Wh)", "Output(Wh)"}, NO_COUNTER_NAMES,
+            ZoneId.systemDefault());
+    private final double[] readingValues = new double[10];
+    private Rollup rollup;
+    private final double[] rollupValues = new double[5];
+
     private AnalogInput analogInputAmmeterSP;
     private AnalogInput analogInputAmmeterBA;
 
@@ -58,10 +129,14 @@ public final class Tracker extends IOIOConsoleApp {
     private IOIOVoltmeter voltmeterSolarPanel;
     private IOIOVoltmeter voltmeterBattery;
     private BMP180 pressureTemperatureSensor;
+    private volatile BMP180Sampler weatherSampler;
     private PwmOutput panPwmOutput;
     private PwmOutput tiltPwmOutput;
     private Pan servoPan;
     private Tilt servoTilt;
+    private ServoController panController;
+    private ServoController tiltController;
+    private ServoTrajectory servoTrajectory;
 
     private double temperature;
     private double relativePressure;
@@ -77,12 +152,21 @@ public final class Tracker extends IOIOConsoleApp {
     private double uvIndex;
     private double uvaPower;
 
-    private SunPosition sunPosition;
-    private Time time;
-    private Location location;
+    private final SunPathTable[] sunPaths = new SunPathTable[2]; // today and tomorrow, by the parity of the UT day
+    private volatile SunPathTable nextSunPath; // fitted in the background
+    private long nextSunPathDay = -1;
+    private ZonedDateTime time;
     private double zenith;
     private double azimuth;
 
+    // read by the metrics endpoint
+    private volatile TaskScheduler scheduler;
+    private volatile AnalogInput[] analogInputs;
+    private volatile LinkStatistics linkStatistics;
+    private final AtomicLong connections = new AtomicLong();
+    private volatile double analogAcquisitionTime; // s
+    private volatile double weatherAge; // s
+
     // Boilerplate tracker(). Copy-paste this code into any IOIO application.
     public static void main(String[] args) throws Exception {
         new Tracker().go(args);
@@ -90,6 +174,8 @@ public final class Tracker extends IOIOConsoleApp {
 
     @Override
     protected void run(String[] args) throws IOException {
+        telemetryWriter.start();
+        startMetrics();
         while (true) {
         }
     }
@@ -99,10 +185,15 @@ public final class Tracker extends IOIOConsoleApp {
         return new BaseIOIOLooper() {
             @Override
             protected void setup() throws ConnectionLostException, InterruptedException {
+                connections.incrementAndGet();
+                linkStatistics = ioio_.getLinkStatistics();
                 led_ = ioio_.openDigitalOutput(IOIO.LED_PIN, true);
 
                 twi = ioio_.openTwiMaster(TWI_MODULE, TwiMaster.Rate.RATE_400KHz, false);
                 pressureTemperatureSensor = new BMP180(twi);
+                weatherSampler = new BMP180Sampler(pressureTemperatureSensor, BMP180.Oversampling.HIGH_RES,
+                        WEATHER_INTERVAL);
+                weatherSampler.start();
 
                 analogInputAmmeterSP = ioio_.openAnalogInput(AMMETER_SP_PIN);
                 analogInputAmmeterSP.setBuffer(BUFFER_SIZE);
@@ -129,76 +220,389 @@ public final class Tracker extends IOIOConsoleApp {
                 uvaSensor = new GUVA_S12SD(GUVA_S12SD.Method.CHAUVENET, GUVA_S12SD.Sample.ONEHUNDRED,
                         analogInputVoltmeterUV, 0, 3.23, 0, 6.8);
 
-                panPwmOutput = ioio_.openPwmOutput(new DigitalOutput.Spec(SERVO_PAN_PIN,
-                        DigitalOutput.Spec.Mode.OPEN_DRAIN), SERVO_PWM_FREQUENCY);
-                servoPan = new Pan(panPwmOutput);
-                servoPan.write(0);
-
-                tiltPwmOutput = ioio_.openPwmOutput(new DigitalOutput.Spec(SERVO_TILT_PIN,
-                        DigitalOutput.Spec.Mode.OPEN_DRAIN), SERVO_PWM_FREQUENCY);
-                servoTilt = new Tilt(tiltPwmOutput);
-                servoTilt.write(0);
-
-                location = new Location(LONGITUDE, LATITUDE);
+                analogInputs = new AnalogInput[]{analogInputAmmeterSP, analogInputVoltmeterSP, analogInputAmmeterBA,
+                        analogInputVoltmeterBA, analogInputVoltmeterUV};
+                electrical = new AnalogAcquisition(ELECTRICAL_FRAMES, analogInputs);
+                solarPanelMeter = new PowerMeter(voltmeterSolarPanel, ammeterSolarPanel);
+                batteryMeter = new PowerMeter(voltmeterBattery, ammeterBattery);
+                if (rawCapture == null) {
+                    try {
+                        rawCapture = new RawCapture(CAPTURE_DIRECTORY, 5, CAPTURE_DAYS);
+                    } catch (IOException e) {
+                        System.err.println("Unable to open the raw capture: " + e.getMessage());
+                    }
+                }
+                ioio_.setAnalogFrameListener(rawCapture);
+                if (rollup == null) {
+                    try {
+                        rollup = new Rollup(ROLLUP_DIRECTORY, new String[]{"input", "output", "uvIndex",
+                                "temperature", "pressure"}, ZoneId.systemDefault());
+                    } catch (IOException e) {
+                        System.err.println("Unable to open the rollups: " + e.getMessage());
+                    }
+                }
+                if (solarPanelEnergy == null) {
+                    solarPanelEnergy = loadEnergy(SOLAR_PANEL_ENERGY_FILE);
+                    batteryEnergy = loadEnergy(BATTERY_ENERGY_FILE);
+                }
+
+                if (SERVO_TRAJECTORY) {
+                    servoTrajectory = new ServoTrajectory(ioio_, SERVO_PAN_PIN, SERVO_TILT_PIN, Tracker.this::locate);
+                } else {
+                    panPwmOutput = ioio_.openPwmOutput(new DigitalOutput.Spec(SERVO_PAN_PIN,
+                            DigitalOutput.Spec.Mode.OPEN_DRAIN), SERVO_PWM_FREQUENCY);
+                    servoPan = new Pan(panPwmOutput);
+                    servoPan.write(0);
+                    panController = new ServoController(servoPan, SERVO_DEADBAND, SERVO_MAX_SPEED);
+
+                    tiltPwmOutput = ioio_.openPwmOutput(new DigitalOutput.Spec(SERVO_TILT_PIN,
+                            DigitalOutput.Spec.Mode.OPEN_DRAIN), SERVO_PWM_FREQUENCY);
+                    servoTilt = new Tilt(tiltPwmOutput);
+                    servoTilt.write(0);
+                    tiltController = new ServoController(servoTilt, SERVO_DEADBAND, SERVO_MAX_SPEED);
+                }
+
+                weatherSampler.awaitMeasurement();
 
                 Thread.sleep(30_000); //Used to orient it towards the geographic south
-                System.out.println("ZoneDateTime\t\t\t\t\t\t\t\t\tT.(°C)\tP.(atm)\t\tZenith°\tAzimuth°" +
-                        "\tInput(W)\tOutput(W)\tUVIndex\t\tUVAPower (W/m2)");
+
+                // released from now on, after the pause; the tasks of a previous connection are dropped, and the new
+                // ones published once complete
+                TaskScheduler tasks = new TaskScheduler();
+                tasks.schedule("weather", WEATHER_PERIOD, Tracker.this::readWeather);
+                tasks.schedule("electrical", ELECTRICAL_PERIOD, Tracker.this::readElectrical);
+                tasks.schedule("servo", SERVO_PERIOD, Tracker.this::moveServos);
+                tasks.schedule("telemetry", TELEMETRY_PERIOD, Tracker.this::report);
+                tasks.schedule("checkpoint", CHECKPOINT_PERIOD, Tracker.this::checkpoint);
+                scheduler = tasks;
             }
 
             @Override
             public void loop() throws ConnectionLostException, InterruptedException {
-                led_.write(ledOn_);
+                scheduler.runNext();
+            }
+        };
+    }
 
-                temperature = pressureTemperatureSensor.getTemperature();
-                relativePressure = pressureTemperatureSensor.mbToAtm(pressureTemperatureSensor.
-                        seaLevel(pressureTemperatureSensor.getPressure(temperature, BMP180.Oversampling.HIGH_RES),
-                                ALTITUDE));
+    private void readWeather() {
+        BMP180Sampler.Measurement weather = weatherSampler.getMeasurement();
+        weatherAge = (System.currentTimeMillis() - weather.getPressureTime()) / 1000.0;
+        temperature = weather.getTemperature();
+        relativePressure = pressureTemperatureSensor.mbToAtm(pressureTemperatureSensor.
+                seaLevel(weather.getPressure(), ALTITUDE));
+    }
 
-                currentSolarPanel = ammeterSolarPanel.getVolts(); // -0.05 ajuste práctico
-                voltageSolarPanel = voltmeterSolarPanel.getVolts(); // +0.5 ajuste práctico;
-                powerSolarPanel = currentSolarPanel * voltageSolarPanel;
+    private void readElectrical() throws ConnectionLostException, InterruptedException {
+        long start = System.nanoTime();
+        electrical.acquire();
+        analogAcquisitionTime = (System.nanoTime() - start) / 1e9;
+        accumulateElectrical();
+        while (electrical.hasWindow()) { // catches up on the windows that arrived while the task was late
+            electrical.acquire();
+            accumulateElectrical();
+        }
+    }
 
-                currentBattery = ammeterBattery.getVolts(); // -0.05 ajuste práctico;
-                voltageBattery = voltmeterBattery.getVolts();
-                powerBattery = currentBattery * voltageBattery;
+    private void accumulateElectrical() {
+        long now = System.currentTimeMillis();
+        long frame = electrical.getFirstFrame();
 
-                uvIndex = uvaSensor.getUVIndex();
-                uvaPower = uvaSensor.getUVAPower(uvIndex);
+        currentSolarPanel = ammeterSolarPanel.getVolts(electrical.getCounts(0)); // -0.05 ajuste práctico
+        voltageSolarPanel = voltmeterSolarPanel.getVolts(electrical.getCounts(1)); // +0.5 ajuste práctico;
+        solarPanelEnergy.add(solarPanelMeter.accumulate(electrical.getCounts(1), electrical.getCounts(0), 0,
+                ELECTRICAL_FRAMES, frame), now);
 
-                time = new Time(ZonedDateTime.now());
-                time.computeTime();
+        currentBattery = ammeterBattery.getVolts(electrical.getCounts(2)); // -0.05 ajuste práctico;
+        voltageBattery = voltmeterBattery.getVolts(electrical.getCounts(3));
+        batteryEnergy.add(batteryMeter.accumulate(electrical.getCounts(3), electrical.getCounts(2), 0,
+                ELECTRICAL_FRAMES, frame), now);
 
-                sunPosition = new SunPosition(new ObservationPoint(time, location,
-                        new Weather(temperature, relativePressure)));
-                sunPosition.computePosition();
+        uvIndex = uvaSensor.getUVIndex(electrical.getCounts(4));
+        uvaPower = uvaSensor.getUVAPower(uvIndex);
+    }
 
-                zenith = toDegrees(sunPosition.getZenith());
-                azimuth = toDegrees(sunPosition.getAzimuth());
+    private void moveServos() throws ConnectionLostException, InterruptedException {
+        if (SERVO_TRAJECTORY) {
+            servoTrajectory.refill();
+        } else {
+            locateSun();
+            tiltController.write(zenith);
+            panController.write(azimuth);
+        }
+    }
 
-                servoTilt.write((int) zenith);
-                servoPan.write((int) azimuth);
+    private void report() throws ConnectionLostException, InterruptedException {
+        led_.write(ledOn_);
+        ledOn_ = false;
+        locateSun();
+
+        // mean of the instantaneous power since the last report
+        powerSolarPanel = solarPanelMeter.getMeanPower();
+        solarPanelMeter.reset();
+        powerBattery = batteryMeter.getMeanPower();
+        batteryMeter.reset();
+
+        print();
+        store();
+        if (rollup != null) {
+            rollupValues[0] = powerSolarPanel;
+            rollupValues[1] = powerBattery;
+            rollupValues[2] = uvIndex;
+            rollupValues[3] = temperature;
+            rollupValues[4] = relativePressure;
+            rollup.add(time.toInstant().toEpochMilli(), rollupValues);
+        }
+    }
 
-                ledOn_ = false;
+    private void store() {
+        telemetryValues[0] = temperature;
+        telemetryValues[1] = relativePressure;
+        telemetryValues[2] = zenith;
+        telemetryValues[3] = azimuth;
+        telemetryValues[4] = powerSolarPanel;
+        telemetryValues[5] = powerBattery;
+        telemetryValues[6] = uvIndex;
+        telemetryValues[7] = uvaPower;
+        telemetryCounters[0] = electrical.getFirstFrame();
+        telemetryCounters[1] = 0;
+        for (TaskScheduler.Task task : scheduler.getTasks()) {
+            telemetryCounters[1] += task.getOverruns();
+        }
+        try {
+            telemetryStore.append(time.toInstant().toEpochMilli(), telemetryValues, telemetryCounters);
+        } catch (IOException e) {
+            System.err.println("Unable to store the telemetry: " + e.getMessage());
+        }
+    }
+
+    private void checkpoint() {
+        try {
+            solarPanelEnergy.save(SOLAR_PANEL_ENERGY_FILE);
+            batteryEnergy.save(BATTERY_ENERGY_FILE);
+        } catch (IOException e) {
+            System.err.println("Unable to save the energy counters: " + e.getMessage());
+        }
+        if (rawCapture != null) {
+            rawCapture.force();
+        }
+        try {
+            telemetryStore.flush();
+        } catch (IOException e) {
+            System.err.println("Unable to store the telemetry: " + e.getMessage());
+        }
+        if (rollup != null) {
+            try {
+                rollup.flush();
+            } catch (IOException e) {
+                System.err.println("Unable to save the rollups: " + e.getMessage());
+            }
+        }
+    }
 
-                print();
+    /**
+     * Serves the statistics of the tasks, the sensors and the link with the IOIO. Every metric reads a volatile field
+     * or an atomic counter, so a scrape never holds up the loop or the protocol thread.
+     */
+    private void startMetrics() {
+        MetricsServer metrics;
+        try {
+            metrics = new MetricsServer(METRICS_ADDRESS);
+        } catch (IOException e) {
+            System.err.println("Unable to start the metrics endpoint: " + e.getMessage());
+            return;
+        }
+        for (String name : TASK_NAMES) {
+            String labels = "task=\"" + name + "\"";
+            metrics.gauge("tracker_task_period_seconds", "Period of the task.", labels,
+                    () -> task(name).getPeriod() / 1000.0);
+            metrics.counter("tracker_task_runs_total", "Runs of the task since the connection.", labels,
+                    () -> task(name).getRuns());
+            metrics.counter("tracker_task_overruns_total", "Releases skipped because the task ran late.", labels,
+                    () -> task(name).getOverruns());
+            metrics.gauge("tracker_task_latency_seconds", "Mean time from the release to the start of a run.",
+                    labels, () -> task(name).getMeanLatency() / 1000.0);
+            metrics.gauge("tracker_task_latency_max_seconds", "Maximum time from the release to the start of a run.",
+                    labels, () -> task(name).getMaxLatency() / 1000.0);
+            metrics.gauge("tracker_task_duration_seconds", "Mean run time of the task.", labels,
+                    () -> task(name).getMeanDuration() / 1000.0);
+            metrics.gauge("tracker_task_duration_max_seconds", "Maximum run time of the task.", labels,
+                    () -> task(name).getMaxDuration() / 1000.0);
+        }
+        metrics.gauge("tracker_analog_acquisition_seconds", "Time taken by the last window of the analog inputs.",
+                () -> analogAcquisitionTime);
+        metrics.gauge("tracker_weather_age_seconds", "Age of the BMP180 measurement when it was last read.",
+                () -> weatherAge);
+        metrics.counter("tracker_weather_failures_total", "Failed TWI transactions with the BMP180.",
+                () -> weatherSampler.getFailures());
+        for (int i = 0; i < ANALOG_INPUT_NAMES.length; i++) {
+            int input = i;
+            metrics.counter("ioio_analog_overflows_total", "Samples lost because the buffer of the input was full.",
+                    "input=\"" + ANALOG_INPUT_NAMES[i] + "\"", () -> overflows(input));
+        }
+        metrics.counter("ioio_bytes_received_total", "Bytes received from the IOIO since the connection.",
+                () -> link().getBytesIn());
+        metrics.counter("ioio_bytes_sent_total", "Bytes sent to the IOIO since the connection.",
+                () -> link().getBytesOut());
+        metrics.counter("ioio_commands_received_total", "Protocol messages received from the IOIO.",
+                () -> link().getCommandsIn());
+        metrics.counter("ioio_commands_sent_total", "Protocol commands sent to the IOIO.",
+                () -> link().getCommandsOut());
+        metrics.counter("ioio_flow_control_stalls_total", "Waits of TWI and SPI packets for room in the IOIO.",
+                () -> link().getFlowControlStalls());
+        metrics.counter("ioio_connections_total", "Connections established with the IOIO.", connections::get);
+        metrics.counter("ioio_reconnects_total", "Connections established after the first one.",
+                () -> Math.max(0, connections.get() - 1));
+        metrics.counter("tracker_console_dropped_total", "Readings dropped because the console fell behind.",
+                telemetryWriter::getDropped);
+        metrics.start();
+    }
 
-                Thread.sleep(1000);
+    private TaskScheduler.Task task(String name) {
+        TaskScheduler current = scheduler;
+        if (current != null) {
+            for (TaskScheduler.Task task : current.getTasks()) {
+                if (task.getName().equals(name)) {
+                    return task;
+                }
             }
-        };
+        }
+        throw new IllegalStateException("No task " + name);
+    }
+
+    private LinkStatistics link() {
+        LinkStatistics statistics = linkStatistics;
+        if (statistics == null) {
+            throw new IllegalStateException("Not connected");
+        }
+        return statistics;
+    }
+
+    private double overflows(int input) {
+        AnalogInput[] inputs = analogInputs;
+        if (inputs == null) {
+            throw new IllegalStateException("Not connected");
+        }
+        try {
+            return inputs[input].getOverflowCount();
+        } catch (ConnectionLostException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private EnergyMeter loadEnergy(Path file) {
+        try {
+            EnergyMeter meter = EnergyMeter.load(file, ZoneId.systemDefault());
+            if (meter != null) {
+                return meter;
+            }
+        } catch (IOException e) {
+            System.err.println("Unable to read the energy counters: " + e.getMessage());
+        }
+        return new EnergyMeter(ZoneId.systemDefault());
+    }
+
+    private void locateSun() {
+        time = ZonedDateTime.now();
+        long now = time.toInstant().toEpochMilli();
+        SunPathTable sunPath = sunPath(now);
+        sunPath.lookup(now);
+
+        zenith = toDegrees(sunPath.getZenith());
+        azimuth = toDegrees(sunPath.getAzimuth());
+    }
+
+    /**
+     * The trajectory of the servomotors, ahead of the loop.
+     */
+    private void locate(long epochMillis, double[] angles) {
+        SunPathTable sunPath = sunPath(epochMillis);
+        sunPath.lookup(epochMillis);
+        angles[0] = Math.toDegrees(sunPath.getAzimuth());
+        angles[1] = Math.toDegrees(sunPath.getZenith());
+    }
+
+    /**
+     * The table shared by the readings and the trajectory, which runs ahead of them across midnight UT. The table of
+     * the next day is fitted in the background as soon as a day is taken up, so the loop only waits for a fit at the
+     * start, or when the background fit is late.
+     */
+    private SunPathTable sunPath(long epochMillis) {
+        long day = SunPathTable.dayOf(epochMillis);
+        int slot = (int) (day & 1);
+        SunPathTable table = sunPaths[slot];
+        if (table != null && table.covers(epochMillis, LONGITUDE, LATITUDE)) {
+            return table;
+        }
+        table = nextSunPath;
+        if (table == null || !table.covers(epochMillis, LONGITUDE, LATITUDE)) {
+            table = loadSunPath(day, temperature, relativePressure);
+        }
+        sunPaths[slot] = table;
+        prepareSunPath(day + 1);
+        return table;
+    }
+
+    private void prepareSunPath(long day) {
+        if (nextSunPathDay >= day) {
+            return;
+        }
+        nextSunPathDay = day;
+        double temperature = this.temperature;
+        double pressure = relativePressure;
+        Thread thread = new Thread(() -> nextSunPath = loadSunPath(day, temperature, pressure), "SunPathTable");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Reuses the table saved for the day and site, or fits a new one from the full sun position computation. Every
+     * day has a file of its own, so a restart finds today's table even after tomorrow's was fitted.
+     */
+    private SunPathTable loadSunPath(long day, double temperature, double pressure) {
+        try {
+            SunPathTable table = SunPathTable.load(sunPathFile(day));
+            if (table != null && table.covers(TimeUnit.DAYS.toMillis(day), LONGITUDE, LATITUDE)) {
+                return table;
+            }
+        } catch (IOException e) {
+            System.err.println("Unable to read the sun path table: " + e.getMessage());
+        }
+
+        SunPathTable table = SunPathTable.generate(day, LONGITUDE, LATITUDE, temperature, pressure,
+                SUN_PATH_TOLERANCE);
+        saveSunPath(table);
+        return table;
+    }
+
+    /**
+     * Called from the loop and from the background fit, which would otherwise share the temporary file when the
+     * background fit is late. The files older than the day before the table are no longer needed.
+     */
+    private synchronized void saveSunPath(SunPathTable table) {
+        try {
+            table.save(sunPathFile(table.getDay()));
+            Files.deleteIfExists(sunPathFile(table.getDay() - 2));
+        } catch (IOException e) {
+            System.err.println("Unable to save the sun path table: " + e.getMessage());
+        }
+    }
+
+    private Path sunPathFile(long day) {
+        return Paths.get(String.format(Locale.ROOT, SUN_PATH_FILE, day));
     }
 
-    private void print() {
-        System.out.print(time.getZonedDateTime().withZoneSameInstant(ZoneId.systemDefault()) + "\t");
-        System.out.print(round(temperature) + "\t");
-        System.out.print(round(relativePressure) + "\t\t\t");
-        System.out.print(zenith + "\t");
-        System.out.print(azimuth + "\t\t");
-        System.out.print(round(powerSolarPanel) + "\t\t");
-        System.out.print(round(powerBattery) + "\t\t");
-        System.out.print(round(uvIndex) + "\t\t\t");
-        System.out.print(round(uvaPower * 10)); //(mW/cm2)--(*10)-->(W/m2)
-        System.out.println();
+    private void print() throws InterruptedException {
+        readingValues[0] = temperature;
+        readingValues[1] = relativePressure;
+        readingValues[2] = zenith;
+        readingValues[3] = azimuth;
+        readingValues[4] = powerSolarPanel;
+        readingValues[5] = powerBattery;
+        readingValues[6] = uvIndex;
+        readingValues[7] = uvaPower * 10; //(mW/cm2)--(*10)-->(W/m2)
+        readingValues[8] = solarPanelEnergy.getDaily();
+        readingValues[9] = batteryEnergy.getDaily();
+        telemetryWriter.publish(time.toInstant().toEpochMilli(), readingValues, NO_COUNTERS);
     }
 
     private static double round(double value) {